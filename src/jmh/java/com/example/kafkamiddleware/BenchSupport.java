@@ -0,0 +1,102 @@
+package com.example.kafkamiddleware;
+
+import ch.qos.logback.classic.Level;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+
+/**
+ * Utilidades compartidas por los benchmarks JMH (y el harness de carga): logging en WARN para que
+ * los logs por request no dominen la medición, un JWKS local con clave RSA propia y acceso a los
+ * campos @Value de los componentes armados sin Spring.
+ */
+public final class BenchSupport {
+
+    private BenchSupport() {
+    }
+
+    /** Sin Spring no hay configuración de logback: por defecto quedaría todo en DEBUG a consola. */
+    public static void quietLogging() {
+        Logger root = LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        if (root instanceof ch.qos.logback.classic.Logger logback) logback.setLevel(Level.WARN);
+    }
+
+    public static void setField(Object target, String name, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(name);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no se pudo asignar " + name, e);
+        }
+    }
+
+    /** Par RSA 2048 con su JWKS público (kid fijo), como el realm de Keycloak. */
+    public static final class LocalJwks {
+        private final RSAKey publicJwk;
+        private final RSAPrivateKey privateKey;
+
+        public LocalJwks(String kid) {
+            try {
+                KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+                kpg.initialize(2048);
+                KeyPair kp = kpg.generateKeyPair();
+                this.publicJwk = new RSAKey.Builder((RSAPublicKey) kp.getPublic()).keyID(kid).build();
+                this.privateKey = (RSAPrivateKey) kp.getPrivate();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public String jwksJson() {
+            return new JWKSet(publicJwk).toString(true);
+        }
+
+        /** Escribe el JWKS en un archivo temporal y devuelve su URI (file:), que TokenService lee con URL.openStream. */
+        public String writeToTempFile() {
+            try {
+                Path file = Files.createTempFile("jwks", ".json");
+                file.toFile().deleteOnExit();
+                Files.writeString(file, jwksJson(), StandardCharsets.UTF_8);
+                return file.toUri().toString();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /** Token de client_credentials firmado RS256 para el clientId (claim azp). */
+        public String token(String clientId, long ttlMillis) {
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                    .subject(clientId)
+                    .claim("azp", clientId)
+                    .expirationTime(new Date(System.currentTimeMillis() + ttlMillis))
+                    .build();
+            SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(publicJwk.getKeyID()).build(), claims);
+            try {
+                jwt.sign(new RSASSASigner(privateKey));
+            } catch (JOSEException e) {
+                throw new IllegalStateException(e);
+            }
+            return jwt.serialize();
+        }
+    }
+}
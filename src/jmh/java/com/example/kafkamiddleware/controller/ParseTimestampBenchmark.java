@@ -0,0 +1,59 @@
+package com.example.kafkamiddleware.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventController.parseTimestamp con cada formato que aceptan los módulos. El caso "invalid" mide
+ * el camino de excepción (Instant.parse y Long.parseLong fallan antes de devolver null).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseTimestampBenchmark {
+
+    private final Object iso = "2025-09-28T02:30:04.967Z";
+    private final Object epochMillis = 1759026604967L;
+    private final Object epochMillisString = "1759026604967";
+    private final Object localDateTimeArray = List.of(2025, 9, 28, 2, 30, 4, 967000000);
+    private final Object invalid = "28/09/2025 02:30";
+
+    @Benchmark
+    public Instant isoString() {
+        return EventController.parseTimestamp(iso);
+    }
+
+    @Benchmark
+    public Instant epochMillisNumber() {
+        return EventController.parseTimestamp(epochMillis);
+    }
+
+    @Benchmark
+    public Instant epochMillisString() {
+        return EventController.parseTimestamp(epochMillisString);
+    }
+
+    @Benchmark
+    public Instant localDateTimeArray() {
+        return EventController.parseTimestamp(localDateTimeArray);
+    }
+
+    @Benchmark
+    public Instant invalid() {
+        return EventController.parseTimestamp(invalid);
+    }
+}
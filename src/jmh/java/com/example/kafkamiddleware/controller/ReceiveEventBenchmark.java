@@ -0,0 +1,105 @@
+package com.example.kafkamiddleware.controller;
+
+import com.example.kafkamiddleware.BenchSupport;
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.service.CoreApiClient;
+import com.example.kafkamiddleware.service.EventStore;
+import com.example.kafkamiddleware.service.EventValidator;
+import com.example.kafkamiddleware.service.ModuleMessageStore;
+import com.example.kafkamiddleware.service.ModuleRegistry;
+import com.example.kafkamiddleware.service.OriginMapper;
+import com.example.kafkamiddleware.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * POST /events completo a través de MockMvc (DispatcherServlet, parseo del body, validación de
+ * esquema, token RS256 contra un JWKS local con su cache, dedupe y guardado en MEMORY). El reenvío
+ * a Core se reemplaza por un no-op para medir solo el request. Cada invocación manda un evento nuevo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiveEventBenchmark {
+
+    private ObjectMapper mapper;
+    private TokenService tokenService;
+    private ModuleRegistry moduleRegistry;
+    private EventValidator validator;
+    private OriginMapper originMapper;
+    private MockMvc mvc;
+    private String bearer;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchSupport.quietLogging();
+        mapper = new ObjectMapper();
+        BenchSupport.LocalJwks jwks = new BenchSupport.LocalJwks("bench-key");
+        tokenService = new TokenService();
+        BenchSupport.setField(tokenService, "jwksUri", jwks.writeToTempFile());
+        bearer = "Bearer " + jwks.token("ventas-app", TimeUnit.HOURS.toMillis(1));
+
+        moduleRegistry = new ModuleRegistry();
+        BenchSupport.setField(moduleRegistry, "authorizedModulesProperty", "ventas-app");
+        moduleRegistry.init();
+        validator = new EventValidator(mapper);
+        validator.init();
+        originMapper = new OriginMapper();
+        originMapper.init();
+    }
+
+    // Store nuevo por iteración: en MEMORY los eventos nuevos se acumulan
+    @Setup(Level.Iteration)
+    public void newController() throws Exception {
+        EventStore store = new EventStore();
+        BenchSupport.setField(store, "storageType", "MEMORY");
+        CoreApiClient core = new CoreApiClient(store) {
+            @Override
+            public void forwardAsync(Event event, String canonicalOrigin) {
+            }
+        };
+        EventController controller = new EventController(tokenService, moduleRegistry, validator, store,
+                new ModuleMessageStore(), mapper, core, originMapper, null);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        int status = receiveEvent();
+        if (status != 202) throw new IllegalStateException("POST /events respondió " + status);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tokenService.shutdown();
+    }
+
+    @Benchmark
+    public int receiveEvent() throws Exception {
+        String body = "{\"type\":\"POST: Venta\",\"payload\":{\"id\":" + (++sequence)
+                + ",\"items\":[{\"sku\":\"A-1\",\"cantidad\":2,\"precio\":10.5}]},\"timestamp\":\"2025-09-28T02:30:04.967Z\"}";
+        return mvc.perform(post("/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", bearer)
+                        .content(body))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.kafkamiddleware.load;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencias de una operación del harness (en nanos). Guarda todas las muestras y calcula los
+ * percentiles al final ordenándolas: a las tasas de una corrida (decenas de miles de requests)
+ * entra cómodo en memoria y no hay error de bucket como en un histograma.
+ */
+final class LatencyRecorder {
+
+    private final String name;
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Guardado por this
+    private long[] samples = new long[4096];
+    private int size;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized void record(long nanos) {
+        if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+        samples[size++] = nanos;
+    }
+
+    /** Respuesta no 2xx o fallo de conexión; la latencia se registra igual. */
+    void error() {
+        errors.incrementAndGet();
+    }
+
+    /** No se llegó a enviar: se superó el máximo de requests en vuelo. */
+    void drop() {
+        dropped.incrementAndGet();
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return new Snapshot(name, sorted, errors.get(), dropped.get());
+    }
+
+    record Snapshot(String name, long[] sorted, long errors, long dropped) {
+        int count() {
+            return sorted.length;
+        }
+
+        /** Percentil por rango más cercano, en milisegundos. */
+        double percentileMillis(double p) {
+            if (sorted.length == 0) return 0;
+            int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / 1_000_000.0;
+        }
+
+        double maxMillis() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.kafkamiddleware.load;
+
+import com.example.kafkamiddleware.BenchSupport;
+import com.example.kafkamiddleware.KafkaMiddlewareApplication;
+import com.example.kafkamiddleware.dto.EventDto;
+import com.example.kafkamiddleware.service.ModuleDeliveryLog;
+import com.example.kafkamiddleware.service.ModuleMessageStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Carga end-to-end del middleware: lo levanta en un puerto libre contra un Core de prueba
+ * (StubCore: latencia y errores configurables) y un JWKS local (StubJwks), y genera tráfico de
+ * POST /events, GET /events/poll y POST /events/{id}/ack a tasa fija. Al final informa throughput
+ * y latencias p50/p99/p999 por operación.
+ *
+ * El generador es de lazo abierto: cada request tiene su instante programado y la latencia se mide
+ * desde ahí, así una respuesta lenta no frena el envío de las siguientes ni esconde la cola de
+ * espera (coordinated omission). Lo que excede max-in-flight se cuenta como descartado.
+ *
+ * Uso (perfil bench):
+ *   mvn -Pbench test-compile exec:exec -Dbench.main=com.example.kafkamiddleware.load.LoadTest \
+ *       -Dbench.args="--rate=500 --duration=60 --core-latency-ms=50 --core-error-rate=0.05"
+ * Cualquier otro --clave=valor se pasa como propiedad al middleware (p. ej. --app.storage.type=MEMORY).
+ * Con --app.modules.log.enabled=true lo que entrega Core va al log durable (module_messages) y cada
+ * poll sigue desde el último offset leído por el módulo, como un consumidor que confirma lo procesado.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("rate", "200");
+        DEFAULTS.put("duration", "30");
+        DEFAULTS.put("warmup", "10");
+        DEFAULTS.put("modules", "ventas-app,inventory-service,analytics-service");
+        DEFAULTS.put("mix", "60:25:15");
+        DEFAULTS.put("core-latency-ms", "20");
+        DEFAULTS.put("core-jitter-ms", "10");
+        DEFAULTS.put("core-error-rate", "0.01");
+        DEFAULTS.put("max-in-flight", "512");
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong messagesPolled = new AtomicLong();
+    // Ids devueltos por POST /events: de acá salen los ACKs
+    private final AtomicReferenceArray<String> recentIds = new AtomicReferenceArray<>(4096);
+    private final AtomicLong recentIdCount = new AtomicLong();
+    // Log durable: último offset leído por módulo (se manda como ?offset= en el próximo poll)
+    private final Map<String, AtomicLong> pollOffsets = new ConcurrentHashMap<>();
+
+    private final String baseUrl;
+    private final List<String> modules;
+    private final Map<String, String> bearers;
+    private final int[] mix;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final boolean durableLog;
+
+    private LoadTest(String baseUrl, List<String> modules, Map<String, String> bearers, int[] mix, int maxInFlight, boolean durableLog) {
+        this.baseUrl = baseUrl;
+        this.durableLog = durableLog;
+        this.modules = modules;
+        this.bearers = bearers;
+        this.mix = mix;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        List<String> passThrough = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("argumento inválido: " + arg + " (se espera --clave=valor)");
+            String key = arg.substring(2, arg.indexOf('='));
+            if (DEFAULTS.containsKey(key)) options.put(key, arg.substring(arg.indexOf('=') + 1));
+            else passThrough.add(arg);
+        }
+
+        int rate = Integer.parseInt(options.get("rate"));
+        int duration = Integer.parseInt(options.get("duration"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        List<String> modules = Arrays.stream(options.get("modules").split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        int[] mix = Arrays.stream(options.get("mix").split(":")).mapToInt(Integer::parseInt).toArray();
+        if (mix.length != 3) throw new IllegalArgumentException("mix debe ser post:poll:ack, p. ej. 60:25:15");
+
+        BenchSupport.quietLogging();
+        AtomicReference<BiConsumer<String, EventDto>> deliveries = new AtomicReference<>();
+        AtomicLong delivered = new AtomicLong();
+        try (StubJwks jwks = new StubJwks();
+             StubCore core = new StubCore(Long.parseLong(options.get("core-latency-ms")), Long.parseLong(options.get("core-jitter-ms")),
+                     Double.parseDouble(options.get("core-error-rate")),
+                     items -> deliverToModules(deliveries.get(), modules, items, delivered))) {
+
+            ConfigurableApplicationContext context = startMiddleware(jwks, core, modules, passThrough);
+            try {
+                // Mismo destino que EventService sin Kafka: log durable si está habilitado, si no la cola en memoria
+                ModuleDeliveryLog deliveryLog = context.getBean(ModuleDeliveryLog.class);
+                ModuleMessageStore queues = context.getBean(ModuleMessageStore.class);
+                boolean durableLog = deliveryLog.isEnabled();
+                deliveries.set(durableLog ? (module, message) -> deliveryLog.append(module, null, message) : queues::addMessageForModule);
+                String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+                Map<String, String> bearers = new LinkedHashMap<>();
+                for (String m : modules) bearers.put(m, jwks.bearerFor(m, TimeUnit.HOURS.toMillis(2)));
+
+                LoadTest test = new LoadTest(baseUrl, modules, bearers, mix, Integer.parseInt(options.get("max-in-flight")), durableLog);
+                System.out.printf(Locale.ROOT, "Middleware en %s | Core %s | JWKS %s%n", baseUrl, core.baseUrl(), jwks.jwksUri());
+                System.out.printf(Locale.ROOT, "Calentamiento: %d s a %d req/s%n", warmup, rate);
+                test.run(rate, warmup);
+                System.out.printf(Locale.ROOT, "Medición: %d s a %d req/s (mix post:poll:ack = %s)%n", duration, rate, options.get("mix"));
+                long eventsBefore = core.eventsAccepted();
+                long acksBefore = core.acksAccepted();
+                long failedBefore = core.requestsFailed();
+                long polledBefore = test.messagesPolled.get();
+                List<LatencyRecorder> recorders = test.run(rate, duration);
+                test.report(recorders, duration);
+                System.out.printf(Locale.ROOT, "Core: %d eventos y %d ACKs aceptados, %d requests con 503 inyectado | mensajes leidos por poll: %d%n",
+                        core.eventsAccepted() - eventsBefore, core.acksAccepted() - acksBefore,
+                        core.requestsFailed() - failedBefore, test.messagesPolled.get() - polledBefore);
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startMiddleware(StubJwks jwks, StubCore core, List<String> modules, List<String> passThrough) {
+        List<String> args = new ArrayList<>(List.of(
+                // la configuración real del módulo (en el classpath de test la sombrea la de src/test/resources)
+                "--spring.config.location=optional:classpath:/application.properties,optional:file:target/classes/application.properties",
+                "--server.port=0",
+                "--app.kafka.enabled=false",
+                "--security.jwks-uri=" + jwks.jwksUri(),
+                "--app.authorized-modules=" + String.join(",", modules),
+                "--core.api.url=" + core.baseUrl(),
+                "--core.api.resource-path=/core/events",
+                "--core.api.batch-path=/core/events/batch",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.orm.jdbc.bind=WARN",
+                "--logging.level.com.example.kafkamiddleware=WARN",
+                "--logging.level.com.example.kafkamiddleware.service.EventStore=WARN"));
+        // después: pisan los valores de arriba
+        args.addAll(passThrough);
+        return new SpringApplicationBuilder(KafkaMiddlewareApplication.class).run(args.toArray(String[]::new));
+    }
+
+    // Lo que en producción Core publica para los módulos: un mensaje por evento aceptado, a un módulo cualquiera
+    private static void deliverToModules(BiConsumer<String, EventDto> deliveries, List<String> modules, int items, AtomicLong delivered) {
+        if (deliveries == null) return;
+        for (int i = 0; i < items; i++) {
+            String module = modules.get(ThreadLocalRandom.current().nextInt(modules.size()));
+            deliveries.accept(module, new EventDto("core.delivery", Map.of("seq", delivered.incrementAndGet()), Instant.now(), "Core"));
+        }
+    }
+
+    private List<LatencyRecorder> run(int rate, int seconds) throws InterruptedException {
+        LatencyRecorder post = new LatencyRecorder("POST /events");
+        LatencyRecorder poll = new LatencyRecorder("GET /events/poll");
+        LatencyRecorder ack = new LatencyRecorder("POST /events/{id}/ack");
+        int total = mix[0] + mix[1] + mix[2];
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long requests = (long) rate * seconds;
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long scheduled = start + i * periodNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            String module = modules.get((int) (i % modules.size()));
+            int pick = ThreadLocalRandom.current().nextInt(total);
+            if (pick < mix[0]) {
+                send(post, scheduled, postEvent(module), this::rememberEventId);
+            } else if (pick < mix[0] + mix[1]) {
+                send(poll, scheduled, pollEvents(module), body -> countPolled(module, body));
+            } else {
+                String id = randomRecentId();
+                if (id != null) send(ack, scheduled, ackEvent(module, id), body -> { });
+                else send(post, scheduled, postEvent(module), this::rememberEventId);
+            }
+        }
+        // esperar a que terminen los requests en vuelo antes de informar
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlightCount() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+        return List.of(post, poll, ack);
+    }
+
+    private int inFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    private void send(LatencyRecorder recorder, long scheduledNanos, HttpRequest request, Consumer<String> onBody) {
+        if (!inFlight.tryAcquire()) {
+            recorder.drop();
+            return;
+        }
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((resp, ex) -> {
+            inFlight.release();
+            recorder.record(System.nanoTime() - scheduledNanos);
+            if (ex != null || resp.statusCode() / 100 != 2) {
+                recorder.error();
+                return;
+            }
+            onBody.accept(resp.body());
+        });
+    }
+
+    private HttpRequest postEvent(String module) {
+        long seq = sequence.incrementAndGet();
+        String body = "{\"type\":\"POST: Carga\",\"payload\":{\"seq\":" + seq + ",\"module\":\"" + module
+                + "\",\"items\":[{\"sku\":\"SKU-" + (seq % 100) + "\",\"cantidad\":" + (seq % 7 + 1) + "}]},\"timestamp\":\"" + Instant.now() + "\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/events"))
+                .header("Authorization", bearers.get(module))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest pollEvents(String module) {
+        String query = durableLog ? "&offset=" + pollOffset(module).get() : "";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/events/poll?max=100" + query))
+                .header("Authorization", bearers.get(module))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest ackEvent(String module, String eventId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/events/" + eventId + "/ack"))
+                .header("Authorization", bearers.get(module))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"consumedAt\":\"" + Instant.now() + "\"}"))
+                .build();
+    }
+
+    private void rememberEventId(String body) {
+        String id = readTree(body).path("eventId").asText(null);
+        if (id == null) return;
+        long n = recentIdCount.getAndIncrement();
+        recentIds.set((int) (n % recentIds.length()), id);
+    }
+
+    private String randomRecentId() {
+        long n = Math.min(recentIdCount.get(), recentIds.length());
+        return n == 0 ? null : recentIds.get(ThreadLocalRandom.current().nextInt((int) n));
+    }
+
+    private void countPolled(String module, String body) {
+        JsonNode node = readTree(body);
+        if (!node.isArray()) return;
+        if (!durableLog) {
+            messagesPolled.addAndGet(node.size());
+            return;
+        }
+        // polls en vuelo a la vez pueden leer la misma ventana del log: solo cuentan los offsets nuevos
+        AtomicLong position = pollOffset(module);
+        for (JsonNode entry : node) {
+            long offset = entry.path("offset").asLong(0);
+            if (position.getAndAccumulate(offset, Math::max) < offset) messagesPolled.incrementAndGet();
+        }
+    }
+
+    private AtomicLong pollOffset(String module) {
+        return pollOffsets.computeIfAbsent(module, m -> new AtomicLong());
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return mapper.readTree(body);
+        } catch (Exception e) {
+            return mapper.missingNode();
+        }
+    }
+
+    private void report(List<LatencyRecorder> recorders, int seconds) {
+        System.out.printf(Locale.ROOT, "%-24s %9s %8s %9s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errores", "descart.", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long all = 0;
+        for (LatencyRecorder recorder : recorders) {
+            LatencyRecorder.Snapshot s = recorder.snapshot();
+            all += s.count();
+            System.out.printf(Locale.ROOT, "%-24s %9d %8d %9d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    s.name(), s.count(), s.errors(), s.dropped(), (double) s.count() / seconds,
+                    s.percentileMillis(50), s.percentileMillis(99), s.percentileMillis(99.9), s.maxMillis());
+        }
+        System.out.printf(Locale.ROOT, "%-24s %9d %8s %9s %10.1f%n", "total", all, "", "", (double) all / seconds);
+    }
+}
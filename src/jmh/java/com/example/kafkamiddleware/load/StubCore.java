@@ -0,0 +1,113 @@
+package com.example.kafkamiddleware.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Core de prueba: acepta POST /core/events (y /core/events/batch) y /core/ack (y /core/ack/batch)
+ * con una latencia fija más jitter y una tasa de errores 503 configurables, como un Core lento o
+ * inestable. Por cada lote de eventos aceptado avisa a onDelivered con la cantidad, para que el
+ * harness le encole mensajes a los módulos (lo que en producción hace Core vía Kafka).
+ */
+final class StubCore implements AutoCloseable {
+
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final IntConsumer onDelivered;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final AtomicLong eventsAccepted = new AtomicLong();
+    private final AtomicLong acksAccepted = new AtomicLong();
+    private final AtomicLong requestsFailed = new AtomicLong();
+
+    StubCore(long latencyMs, long jitterMs, double errorRate, IntConsumer onDelivered) throws IOException {
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+        this.errorRate = errorRate;
+        this.onDelivered = onDelivered;
+        // La latencia simulada bloquea el hilo: pool sin tope para no serializar requests concurrentes
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stub-core");
+            t.setDaemon(true);
+            return t;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/core/events", exchange -> handle(exchange, true));
+        server.createContext("/core/ack", exchange -> handle(exchange, false));
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, boolean events) throws IOException {
+        try (exchange) {
+            int items = countItems(exchange.getRequestBody());
+            long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+            if (delay > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                requestsFailed.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            if (events) {
+                eventsAccepted.addAndGet(items);
+                onDelivered.accept(items);
+            } else {
+                acksAccepted.addAndGet(items);
+            }
+            exchange.sendResponseHeaders(202, -1);
+        }
+    }
+
+    // Un objeto (POST individual) o un array (lote)
+    private int countItems(InputStream body) {
+        try (body) {
+            JsonNode node = mapper.readTree(body);
+            return node != null && node.isArray() ? node.size() : 1;
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    long eventsAccepted() {
+        return eventsAccepted.get();
+    }
+
+    long acksAccepted() {
+        return acksAccepted.get();
+    }
+
+    long requestsFailed() {
+        return requestsFailed.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.kafkamiddleware.load;
+
+import com.example.kafkamiddleware.BenchSupport;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keycloak de prueba: sirve el JWKS de una clave RSA local en GET /certs y firma los tokens de
+ * client_credentials de cada módulo (azp = módulo), que el middleware valida contra esa URL.
+ */
+final class StubJwks implements AutoCloseable {
+
+    private final BenchSupport.LocalJwks jwks = new BenchSupport.LocalJwks("load-test-key");
+    private final HttpServer server;
+
+    StubJwks() throws IOException {
+        byte[] body = jwks.jwksJson().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/certs", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+    }
+
+    String jwksUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/certs";
+    }
+
+    String bearerFor(String module, long ttlMillis) {
+        return "Bearer " + jwks.token(module, ttlMillis);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
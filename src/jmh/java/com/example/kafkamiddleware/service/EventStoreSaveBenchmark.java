@@ -0,0 +1,121 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.BenchSupport;
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.dto.EventStatus;
+import com.example.kafkamiddleware.persistence.EventRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventStore.save por modo de almacenamiento:
+ * MEMORY; DATABASE (H2 en memoria vía JPA, con ventana reciente y filtro de Bloom); DATABASE_INSERT_FIRST
+ * (app.storage.insert-first=true); DATABASE_LOOKUP (sin ventana ni filtro: findBySignature antes de cada INSERT).
+ * newEvent siempre trae contenido nuevo; duplicate repite el mismo evento (reintento de un módulo).
+ * En DATABASE se levanta solo JPA + H2 (sin web ni Kafka) y la tabla se vacía en cada iteración.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventStoreSaveBenchmark {
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = KafkaAutoConfiguration.class)
+    @EntityScan("com.example.kafkamiddleware.persistence")
+    @EnableJpaRepositories("com.example.kafkamiddleware.persistence")
+    static class JpaOnly {
+    }
+
+    @Param({"MEMORY", "DATABASE", "DATABASE_INSERT_FIRST", "DATABASE_LOOKUP"})
+    String storage;
+
+    private ConfigurableApplicationContext context;
+    private EventRepository repository;
+    private EventStore store;
+    private JsonNode payload;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void startContext() throws Exception {
+        BenchSupport.quietLogging();
+        payload = new ObjectMapper().readTree("{\"id\":1,\"items\":[{\"sku\":\"A-1\",\"cantidad\":2,\"precio\":10.5}],\"cliente\":\"c-1\"}");
+        if (storage.startsWith("DATABASE")) {
+            context = new SpringApplicationBuilder(JpaOnly.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("spring.datasource.url=jdbc:h2:mem:bench-store;DB_CLOSE_DELAY=-1",
+                            "spring.jpa.hibernate.ddl-auto=create-drop",
+                            "spring.jpa.show-sql=false",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN",
+                            // insert-first: cada duplicado loguea la violación del unique
+                            "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF")
+                    .run();
+            repository = context.getBean(EventRepository.class);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newStore() throws Exception {
+        if (repository != null) repository.deleteAllInBatch();
+        store = new EventStore();
+        BenchSupport.setField(store, "storageType", storage.startsWith("DATABASE") ? "DB" : "MEMORY");
+        if (repository != null) {
+            BenchSupport.setField(store, "repository", repository);
+            BenchSupport.setField(store, "insertFirst", storage.equals("DATABASE_INSERT_FIRST"));
+            boolean cached = storage.equals("DATABASE");
+            BenchSupport.setField(store, "dedupeCacheEnabled", cached);
+            BenchSupport.setField(store, "bloomEnabled", cached);
+        }
+        store.onInit();
+        while (storage.equals("DATABASE") && !store.isSignatureFilterReady()) Thread.sleep(1);
+        store.save(event(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        if (context != null) context.close();
+    }
+
+    private Event event(long n) {
+        Event e = new Event("POST: Venta", null, Instant.ofEpochMilli(1735689600000L + n), "ventas-app", EventStatus.RECEIVED);
+        e.setPayloadNode(payload);
+        return e;
+    }
+
+    @Benchmark
+    public Event newEvent() {
+        return store.save(event(++sequence));
+    }
+
+    @Benchmark
+    public Event duplicate() {
+        return store.save(event(0));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.kafkamiddleware.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventValidator.validate (event-schema.json) sobre el árbol ya parseado, como lo recibe receiveEvent:
+ * un evento válido y uno inválido (type vacío, payload numérico), que además arma los mensajes de error.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventValidatorBenchmark {
+
+    private EventValidator validator;
+    private JsonNode valid;
+    private JsonNode invalid;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        validator = new EventValidator(mapper);
+        validator.init();
+        valid = mapper.readTree("{\"type\":\"POST: Venta\",\"payload\":{\"id\":1,\"items\":[{\"sku\":\"A-1\",\"cantidad\":2}]},"
+                + "\"timestamp\":\"2025-09-28T02:30:04.967Z\",\"originModule\":\"ventas-app\"}");
+        invalid = mapper.readTree("{\"type\":\"\",\"payload\":42,\"timestamp\":true}");
+    }
+
+    @Benchmark
+    public Set<String> validEvent() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<String> invalidEvent() {
+        return validator.validate(invalid);
+    }
+}
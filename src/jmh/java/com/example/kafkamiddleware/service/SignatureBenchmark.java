@@ -0,0 +1,97 @@
+package com.example.kafkamiddleware.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firma de dedupe: implementación anterior (String concatenado + getInstance + String.format)
+ * contra EventSignature en SHA256 y MURMUR3_128, y la firma canónica (CanonicalJson) sobre el árbol ya
+ * parseado o parseando el String. Con "-prof gc" se ve además la asignación por firma.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+
+    @Param({"256", "16384"})
+    int payloadSize;
+
+    private String type;
+    private String payloadJson;
+    private long tsMillis;
+    private String origin;
+    private ObjectMapper mapper;
+    private JsonNode payloadNode;
+
+    @Setup
+    public void setUp() {
+        type = "POST: Venta";
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; sb.length() < payloadSize; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"sku\":\"SKU-").append(i).append("\",\"descripcion\":\"artículo ñandú\",\"cantidad\":").append(i % 7).append('}');
+        }
+        payloadJson = sb.append("]}").toString();
+        tsMillis = 1735689600000L;
+        origin = "Ventas";
+        mapper = new ObjectMapper();
+        try {
+            payloadNode = mapper.readTree(payloadJson);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public String legacy() {
+        String base = type + "|" + payloadJson + "|" + tsMillis + "|" + origin;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(base.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(base.hashCode());
+        }
+    }
+
+    @Benchmark
+    public String sha256Streaming() {
+        return EventSignature.of(EventSignature.Algorithm.SHA256, type, payloadJson, tsMillis, origin);
+    }
+
+    @Benchmark
+    public String murmur3Streaming() {
+        return EventSignature.of(EventSignature.Algorithm.MURMUR3_128, type, payloadJson, tsMillis, origin);
+    }
+
+    @Benchmark
+    public String sha256CanonicalFromTree() {
+        return EventSignature.of(EventSignature.Algorithm.SHA256, mapper.getFactory(), type, payloadNode, tsMillis, origin);
+    }
+
+    @Benchmark
+    public String sha256CanonicalFromString() throws Exception {
+        return EventSignature.of(EventSignature.Algorithm.SHA256, mapper.getFactory(), type, mapper.readTree(payloadJson), tsMillis, origin);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.BenchSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenService.validateAndExtractClientId contra un JWKS RSA generado localmente (archivo temporal,
+ * sin Keycloak). tokenCache=false mide la validación completa (parseo + verificación RS256);
+ * true, el caso normal de un módulo que reusa su token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    @Param({"false", "true"})
+    boolean tokenCache;
+
+    private TokenService tokenService;
+    private String bearer;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchSupport.quietLogging();
+        BenchSupport.LocalJwks jwks = new BenchSupport.LocalJwks("bench-key");
+        tokenService = new TokenService();
+        BenchSupport.setField(tokenService, "jwksUri", jwks.writeToTempFile());
+        BenchSupport.setField(tokenService, "tokenCacheEnabled", tokenCache);
+        bearer = "Bearer " + jwks.token("ventas-app", TimeUnit.HOURS.toMillis(1));
+        // primera validación: descarga el JWKS fuera de la medición
+        tokenService.validateAndExtractClientId(bearer);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tokenService.shutdown();
+    }
+
+    @Benchmark
+    public String validateAndExtractClientId() throws Exception {
+        return tokenService.validateAndExtractClientId(bearer);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.kafkamiddleware.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    public static final String CORE_FORWARD_EXECUTOR = "coreForwardExecutor";
+    public static final String MODULE_PUSH_EXECUTOR = "modulePushExecutor";
+
+    /**
+     * El executor por defecto de Spring Boot (spring.task.execution.*): Boot deja de crearlo en cuanto hay
+     * otro Executor en el contexto, y lo usan el soporte async de Spring MVC (SseEmitter, DeferredResult)
+     * y cualquier @Async sin executor explícito.
+     */
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Executor dedicado para el reenvío a Core. La cola es acotada: si se llena, el submit
+     * falla (AbortPolicy) y CoreApiClient deja el evento pendiente en RECEIVED en lugar de
+     * acumularlo en heap. Spring Boot publica sus métricas como executor.* (name=coreForwardExecutor).
+     */
+    @Bean(name = CORE_FORWARD_EXECUTOR)
+    public ThreadPoolTaskExecutor coreForwardExecutor(@Value("${app.core.forward.executor.core-size:4}") int coreSize,
+                                                      @Value("${app.core.forward.executor.max-size:16}") int maxSize,
+                                                      @Value("${app.core.forward.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(Math.max(coreSize, maxSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("core-fwd-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Executor para empujar mensajes a los módulos conectados por SSE (GET /events/poll/stream):
+     * la escritura al socket no corre en el hilo que encola el mensaje (consumer de Kafka / ingest).
+     */
+    @Bean(name = MODULE_PUSH_EXECUTOR)
+    public ThreadPoolTaskExecutor modulePushExecutor(@Value("${app.poll.sse.executor.size:4}") int size,
+                                                     @Value("${app.poll.sse.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("module-push-");
+        return executor;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.kafkamiddleware.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cliente HTTP usado por CoreApiClient para reenviar eventos y ACKs al Core.
+ * Por defecto Apache HttpClient 5 con pool keep-alive, timeouts y desalojo de conexiones ociosas;
+ * con app.core.http.client=JDK usa java.net.http.HttpClient (opcionalmente con virtual threads).
+ */
+@Configuration
+public class CoreHttpClientConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CoreHttpClientConfig.class);
+
+    public static final String CORE_REST_TEMPLATE = "coreRestTemplate";
+
+    @Value("${app.core.http.client:APACHE}")
+    private String clientType;
+
+    @Value("${app.core.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${app.core.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${app.core.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.core.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${app.core.http.pool-acquire-timeout-ms:1000}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${app.core.http.idle-eviction-ms:30000}")
+    private long idleEvictionMs;
+
+    @Value("${app.core.http.jdk.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    // El factory de Apache es DisposableBean: Spring cierra el pool al apagar la app
+    @Bean
+    public ClientHttpRequestFactory coreClientHttpRequestFactory() {
+        if ("JDK".equalsIgnoreCase(clientType)) {
+            return jdkRequestFactory();
+        }
+        return apacheRequestFactory();
+    }
+
+    @Bean(name = CORE_REST_TEMPLATE)
+    public RestTemplate coreRestTemplate(ClientHttpRequestFactory coreClientHttpRequestFactory) {
+        return new RestTemplate(coreClientHttpRequestFactory);
+    }
+
+    HttpComponentsClientHttpRequestFactory apacheRequestFactory() {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                .build();
+        log.info("[Middleware] Cliente HTTP Core: Apache pool maxTotal={} maxPerRoute={} connectTimeout={}ms readTimeout={}ms",
+                maxConnections, maxConnectionsPerRoute, connectTimeoutMs, readTimeoutMs);
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    JdkClientHttpRequestFactory jdkRequestFactory() {
+        // El cliente JDK mantiene su propio pool keep-alive (sin límite por ruta configurable)
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+        if (virtualThreads) {
+            ExecutorService vt = virtualThreadExecutor();
+            if (vt != null) {
+                builder.executor(vt);
+            } else {
+                log.warn("[Middleware] app.core.http.jdk.virtual-threads=true pero la JVM ({}) no soporta virtual threads; se usa el executor por defecto",
+                        Runtime.version());
+            }
+        }
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(builder.build());
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        log.info("[Middleware] Cliente HTTP Core: JDK HttpClient connectTimeout={}ms readTimeout={}ms virtualThreads={}",
+                connectTimeoutMs, readTimeoutMs, virtualThreads);
+        return factory;
+    }
+
+    // Java 17 no tiene virtual threads: se resuelve por reflexión para poder usarlos si la JVM es 21+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
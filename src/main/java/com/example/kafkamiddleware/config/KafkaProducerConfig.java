@@ -0,0 +1,48 @@
+package com.example.kafkamiddleware.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${app.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${app.kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${app.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${app.kafka.producer.delivery-timeout-ms:120000}")
+    private int deliveryTimeoutMs;
+
+    /**
+     * Ajustes del productor de core-events sobre la ProducerFactory de Spring Boot (se suman a
+     * spring.kafka.producer.*, incluida la config SASL). Idempotente con acks=all: los reintentos
+     * internos no duplican ni reordenan mensajes por partición; batching + linger + compresión
+     * agrupan los envíos en pocos requests al broker.
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer coreEventsProducerCustomizer() {
+        return factory -> {
+            Map<String, Object> props = new HashMap<>();
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+            props.put(ProducerConfig.ACKS_CONFIG, "all");
+            props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+            props.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+            props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+            props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+            props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+            factory.updateConfigs(props);
+        };
+    }
+}
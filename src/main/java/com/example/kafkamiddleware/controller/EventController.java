@@ -1,27 +1,45 @@
 package com.example.kafkamiddleware.controller;
 
+import com.example.kafkamiddleware.config.AsyncConfig;
 import com.example.kafkamiddleware.dto.Event;
-import com.example.kafkamiddleware.dto.EventDto;
 import com.example.kafkamiddleware.dto.EventStatus;
+import com.example.kafkamiddleware.service.AckRelay;
 import com.example.kafkamiddleware.service.AckService;
 import com.example.kafkamiddleware.service.CoreApiClient;
 import com.example.kafkamiddleware.service.EventStore;
 import com.example.kafkamiddleware.service.EventValidator;
+import com.example.kafkamiddleware.service.ModuleDeliveryLog;
+import com.example.kafkamiddleware.service.ModuleFeed;
 import com.example.kafkamiddleware.service.ModuleMessageStore;
 import com.example.kafkamiddleware.service.ModuleRegistry;
 import com.example.kafkamiddleware.service.TokenService;
 import com.example.kafkamiddleware.service.TokenService.TokenValidationException;
 import com.example.kafkamiddleware.service.OriginMapper;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +60,51 @@ public class EventController {
     private final OriginMapper originMapper;
     private final AckService ackService;
 
+    @Value("${app.ingest.batch.max-size:1000}")
+    private int maxBatchSize = 1000;
+
+    // NDJSON: eventos por saveAll y tope de errores detallados en la respuesta (memoria acotada)
+    @Value("${app.ingest.stream.chunk-size:500}")
+    private int streamChunkSize = 500;
+
+    @Value("${app.ingest.stream.max-reported-errors:100}")
+    private int streamMaxReportedErrors = 100;
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    // GET /events: tamaño de página por defecto y máximo permitido en ?limit=
+    @Value("${app.events.list.default-limit:100}")
+    private int listDefaultLimit = 100;
+
+    @Value("${app.events.list.max-limit:1000}")
+    private int listMaxLimit = 1000;
+
+    // POST /events/ack: máximo de ACKs por request
+    @Value("${app.ack.batch.max-size:1000}")
+    private int maxAckBatchSize = 1000;
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Long-poll: tope del parámetro wait (segundos) y duración de una conexión SSE antes de que el cliente reconecte
+    @Value("${app.poll.max-wait-seconds:30}")
+    private int pollMaxWaitSeconds = 30;
+
+    @Value("${app.poll.sse.timeout-ms:1800000}")
+    private long sseTimeoutMs = 1_800_000L;
+
+    // Log de entrega durable por módulo (app.modules.log.enabled); sin él se usa la cola en memoria
+    @Autowired(required = false)
+    private ModuleDeliveryLog moduleDeliveryLog;
+
+    // Reenvío de ACKs a Core fuera del request (app.ack.relay.enabled); sin él se reenvía en el mismo hilo
+    @Autowired(required = false)
+    private AckRelay ackRelay;
+
+    // Escritura SSE fuera del hilo que encola (AsyncConfig); sin executor (tests unitarios) se envía inline
+    @Autowired(required = false)
+    @Qualifier(AsyncConfig.MODULE_PUSH_EXECUTOR)
+    private TaskExecutor modulePushExecutor;
+
     public EventController(TokenService tokenService,
                            ModuleRegistry moduleRegistry,
                            EventValidator eventValidator,
@@ -64,9 +127,9 @@ public class EventController {
 
     @PostMapping
     public ResponseEntity<?> receiveEvent(@RequestHeader(value = "Authorization", required = false) String authorization,
-                                          @RequestBody Map<String, Object> body) {
-        log.info("[Middleware] POST /events recibido. Auth header presente? {} | Claves body: {}", authorization != null && !authorization.isBlank(), body != null ? body.keySet() : "<null>");
-        // Validate against JSON schema first
+                                          @RequestBody JsonNode body) {
+        log.info("[Middleware] POST /events recibido. Auth header presente? {} | Claves body: {}", authorization != null && !authorization.isBlank(), fieldNames(body));
+        // Validate against JSON schema first (sobre el árbol ya parseado, sin convertir a Map)
         var schemaErrors = eventValidator.validate(body);
         if (schemaErrors != null && !schemaErrors.isEmpty()) {
             log.warn("[Middleware] Schema validation failed: {}", schemaErrors);
@@ -86,49 +149,13 @@ public class EventController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Module not authorized", "clientId", clientId));
         }
 
-        // Normalize fields
-        String type = castToString(body.get("type"));
-        Object payloadObj = body.get("payload");
-        Map<String, Object> payload = null;
-        if (payloadObj instanceof Map) {
-            payload = (Map<String, Object>) payloadObj;
-        } else if (payloadObj instanceof String) {
-            String s = (String) payloadObj;
-            try {
-                // intentar parsear como JSON
-                payload = objectMapper.readValue(s, Map.class);
-            } catch (Exception ex) {
-                // si no es JSON, guardar como string simple
-                payload = Map.of("value", s);
-            }
-        } else if (payloadObj == null) {
-            payload = Map.of();
-        } else {
-            // try to convert to map
-            payload = objectMapper.convertValue(payloadObj, Map.class);
-        }
-
-        Instant timestamp = parseTimestamp(body.get("timestamp"));
-
-        String originModuleRaw = castToString(body.get("originModule"));
-        String originModuleFinal = clientId; // SIEMPRE usar el clientId del token
-        if (originModuleRaw != null && !originModuleRaw.isBlank() && !originModuleRaw.equals(clientId)) {
-            log.warn("[Middleware] originModule provisto ('{}') no coincide con token ('{}'). Se usará el del token.", originModuleRaw, clientId);
-        }
-
-        // Validate contract: type, payload, timestamp, originModule
-        if (type == null || type.isBlank()) {
-            log.warn("[Middleware] type missing in request");
+        // Normalize fields + validate contract: type, payload, timestamp, originModule
+        Event event = toEvent(body, clientId);
+        if (event == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "type is required"));
         }
-        if (timestamp == null) {
-            timestamp = Instant.now();
-        }
-
-        EventDto eventDto = new EventDto(type, payload, timestamp, originModuleFinal);
 
         // Persist as Event with status RECEIVED
-        Event event = new Event(type, payload, timestamp, originModuleFinal, EventStatus.RECEIVED);
         Event saved = eventStore.save(event);
         log.info("[Middleware] Event recibido y guardado con id={} status={}", saved.getId(), EventStatus.RECEIVED);
 
@@ -139,9 +166,202 @@ public class EventController {
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("status", "received", "eventId", saved.getId()));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> receiveEventBatch(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                               @RequestBody List<JsonNode> bodies) {
+        log.info("[Middleware] POST /events/batch recibido. Auth header presente? {} | items={}", authorization != null && !authorization.isBlank(), bodies != null ? bodies.size() : 0);
+        // Token y módulo se validan una sola vez para todo el lote
+        String clientId;
+        try {
+            clientId = tokenService.validateAndExtractClientId(authorization);
+        } catch (TokenValidationException e) {
+            log.warn("[Middleware] Token validation failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+        }
+
+        if (!moduleRegistry.isAuthorizedModule(clientId)) {
+            log.warn("[Middleware] Module not authorized: {}", clientId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Module not authorized", "clientId", clientId));
+        }
+
+        if (bodies == null || bodies.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "batch is empty"));
+        }
+        if (bodies.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", "batch too large", "maxBatchSize", maxBatchSize));
+        }
+
+        // Resultado por item (en el mismo orden que el request); los válidos se persisten juntos
+        List<Map<String, Object>> results = new ArrayList<>(bodies.size());
+        List<Event> accepted = new ArrayList<>(bodies.size());
+        List<Integer> acceptedIdx = new ArrayList<>(bodies.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            JsonNode body = bodies.get(i);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("index", i);
+            results.add(item);
+
+            var schemaErrors = body != null && !body.isNull() ? eventValidator.validate(body) : Set.of("item is null");
+            if (schemaErrors != null && !schemaErrors.isEmpty()) {
+                item.put("error", "schema_validation_failed");
+                item.put("details", schemaErrors);
+                continue;
+            }
+            Event event = toEvent(body, clientId);
+            if (event == null) {
+                item.put("error", "type is required");
+                continue;
+            }
+            accepted.add(event);
+            acceptedIdx.add(i);
+        }
+
+        List<Event> saved = accepted.isEmpty() ? List.of() : eventStore.saveAll(accepted);
+        String canonicalOrigin = originMapper.map(clientId);
+        Set<String> forwarded = new HashSet<>();
+        int duplicates = 0;
+        for (int k = 0; k < saved.size(); k++) {
+            Event s = saved.get(k);
+            boolean duplicate = !s.getId().equals(accepted.get(k).getId());
+            if (duplicate) duplicates++;
+            Map<String, Object> item = results.get(acceptedIdx.get(k));
+            item.put("eventId", s.getId());
+            item.put("duplicate", duplicate);
+            // Igual que en POST /events se reenvía también el duplicado, pero una sola vez por id
+            if (forwarded.add(s.getId())) {
+                coreApiClient.forwardAsync(s, canonicalOrigin);
+            }
+        }
+
+        log.info("[Middleware] Lote recibido. items={} guardados={} duplicados={} errores={}", bodies.size(), saved.size() - duplicates, duplicates, bodies.size() - saved.size());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("status", "received", "results", results));
+    }
+
+    /**
+     * Ingesta masiva (backfills) en NDJSON: un evento por línea. El body se lee con un JsonParser
+     * incremental y los eventos válidos se guardan de a chunks con saveAll en el mismo hilo, así
+     * no se lee más de lo que EventStore alcanza a persistir y la memoria no crece con el upload.
+     * Responde al final con el resumen (contadores + los primeros errores por línea).
+     */
+    @PostMapping(path = "/stream", consumes = NDJSON)
+    public ResponseEntity<?> receiveEventStream(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                InputStream body) {
+        String clientId;
+        try {
+            clientId = tokenService.validateAndExtractClientId(authorization);
+        } catch (TokenValidationException e) {
+            log.warn("[Middleware] Token validation failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+        }
+
+        if (!moduleRegistry.isAuthorizedModule(clientId)) {
+            log.warn("[Middleware] Module not authorized: {}", clientId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Module not authorized", "clientId", clientId));
+        }
+
+        String canonicalOrigin = originMapper.map(clientId);
+        StreamProgress progress = new StreamProgress();
+        List<Event> chunk = new ArrayList<>(streamChunkSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                long line = parser.currentTokenLocation().getLineNr();
+                progress.lines++;
+                if (token != JsonToken.START_OBJECT) {
+                    // valor suelto (array, número...): se saltea entero y se sigue con la próxima línea
+                    parser.skipChildren();
+                    progress.error(line, "line is not a JSON object", null, streamMaxReportedErrors);
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(parser);
+                var schemaErrors = eventValidator.validate(node);
+                if (schemaErrors != null && !schemaErrors.isEmpty()) {
+                    progress.error(line, "schema_validation_failed", schemaErrors, streamMaxReportedErrors);
+                    continue;
+                }
+                Event event = toEvent(node, clientId);
+                if (event == null) {
+                    progress.error(line, "type is required", null, streamMaxReportedErrors);
+                    continue;
+                }
+                chunk.add(event);
+                if (chunk.size() >= streamChunkSize) {
+                    flushStreamChunk(chunk, canonicalOrigin, progress);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // JSON mal formado: el parser pierde sincronía, se corta acá (lo anterior ya quedó guardado)
+            progress.aborted = true;
+            progress.error(e.getLocation() != null ? e.getLocation().getLineNr() : progress.lines + 1, "malformed_json", Set.of(e.getOriginalMessage()), streamMaxReportedErrors);
+        } catch (IOException e) {
+            log.warn("[Middleware] Error leyendo stream NDJSON: {}", e.getMessage());
+            progress.aborted = true;
+            progress.error(progress.lines + 1, "read_error", Set.of(String.valueOf(e.getMessage())), streamMaxReportedErrors);
+        }
+        if (!chunk.isEmpty()) {
+            flushStreamChunk(chunk, canonicalOrigin, progress);
+        }
+
+        log.info("[Middleware] Stream NDJSON procesado. lineas={} guardados={} duplicados={} errores={} abortado={}", progress.lines, progress.accepted, progress.duplicates, progress.invalid, progress.aborted);
+        HttpStatus status = progress.aborted && progress.accepted == 0 && progress.duplicates == 0 ? HttpStatus.BAD_REQUEST : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(progress.toBody());
+    }
+
+    private void flushStreamChunk(List<Event> chunk, String canonicalOrigin, StreamProgress progress) {
+        List<Event> saved = eventStore.saveAll(chunk);
+        Set<String> forwarded = new HashSet<>();
+        for (int k = 0; k < saved.size(); k++) {
+            Event s = saved.get(k);
+            if (s.getId().equals(chunk.get(k).getId())) {
+                progress.accepted++;
+            } else {
+                progress.duplicates++;
+            }
+            // Igual que en /batch: el duplicado también se reenvía, una sola vez por id dentro del chunk
+            if (forwarded.add(s.getId())) {
+                coreApiClient.forwardAsync(s, canonicalOrigin);
+            }
+        }
+        chunk.clear();
+    }
+
+    private static final class StreamProgress {
+        long lines;
+        long accepted;
+        long duplicates;
+        long invalid;
+        boolean aborted;
+        final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void error(long line, String error, Set<String> details, int maxReported) {
+            invalid++;
+            if (errors.size() >= maxReported) return;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("line", line);
+            item.put("error", error);
+            if (details != null) item.put("details", details);
+            errors.add(item);
+        }
+
+        Map<String, Object> toBody() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("status", aborted ? "aborted" : "received");
+            out.put("lines", lines);
+            out.put("accepted", accepted);
+            out.put("duplicates", duplicates);
+            out.put("invalid", invalid);
+            out.put("errors", errors);
+            return out;
+        }
+    }
+
     @GetMapping
     public ResponseEntity<?> listEvents(@RequestHeader(value = "Authorization", required = false) String authorization,
-                                        @RequestParam(value = "status", required = false) String status) {
+                                        @RequestParam(value = "status", required = false) String status,
+                                        @RequestParam(value = "type", required = false) String type,
+                                        @RequestParam(value = "originModule", required = false) String originModule,
+                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                        @RequestParam(value = "limit", required = false) Integer limit) {
         String clientId;
         try {
             clientId = tokenService.validateAndExtractClientId(authorization);
@@ -149,37 +369,180 @@ public class EventController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
         }
 
-        List<Event> events;
-        if (status == null || status.isBlank()) {
-            events = eventStore.listAll();
-        } else {
+        EventStatus st = null;
+        if (status != null && !status.isBlank()) {
             try {
-                EventStatus st = EventStatus.valueOf(status.toUpperCase());
-                events = eventStore.listByStatus(st);
+                st = EventStatus.valueOf(status.toUpperCase());
             } catch (IllegalArgumentException e) {
                 return ResponseEntity.badRequest().body(Map.of("error", "invalid status"));
             }
         }
-        log.info("[Middleware] GET /events listado solicitado. status={} authPresent={}", status, authorization != null && !authorization.isBlank());
-        return ResponseEntity.ok(events);
+        int pageSize = limit != null ? limit : listDefaultLimit;
+        if (pageSize < 1 || pageSize > listMaxLimit) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + listMaxLimit));
+        }
+
+        EventStore.EventPage page;
+        try {
+            page = eventStore.listPage(st, blankToNull(type), blankToNull(originModule), cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid cursor"));
+        }
+        log.info("[Middleware] GET /events listado solicitado. status={} type={} originModule={} limit={} items={} hasMore={}",
+                status, type, originModule, pageSize, page.events().size(), page.nextCursor() != null);
+        // El body sigue siendo el array de eventos; la siguiente página se pide con ?cursor=<X-Next-Cursor>
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.nextCursor() != null) ok.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        return ok.body(page.events());
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
     }
 
+    /**
+     * Entrega los mensajes pendientes del módulo. Con wait=N (segundos) y la cola vacía, la respuesta
+     * queda abierta hasta que llegue un mensaje o venza la espera (en ese caso, lista vacía).
+     * max limita cuántos mensajes se drenan por respuesta. Con el log de entrega habilitado
+     * (app.modules.log.enabled) se lee desde offset (por defecto, el último confirmado por ACK) y
+     * cada mensaje viene como {offset, eventId, message}.
+     */
     @GetMapping("/poll")
-    public ResponseEntity<?> pollEvents(@RequestHeader(value = "Authorization", required = false) String authorization) {
+    public DeferredResult<ResponseEntity<?>> pollEvents(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                        @RequestParam(value = "wait", required = false) Integer waitSeconds,
+                                                        @RequestParam(value = "max", required = false) Integer max,
+                                                        @RequestParam(value = "offset", required = false) Long offset) {
         String clientId;
         try {
             clientId = tokenService.validateAndExtractClientId(authorization);
         } catch (TokenValidationException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+            return completed(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage())));
         }
 
         if (!moduleRegistry.isAuthorizedModule(clientId)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Module not authorized"));
+            return completed(ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Module not authorized")));
+        }
+        if ((waitSeconds != null && waitSeconds < 0) || (max != null && max < 1) || (offset != null && offset < 0)) {
+            return completed(ResponseEntity.badRequest().body(Map.of("error", "wait and offset must be >= 0 and max >= 1")));
+        }
+        int limit = max != null ? max : Integer.MAX_VALUE;
+        long waitMs = Math.min(waitSeconds != null ? waitSeconds : 0, pollMaxWaitSeconds) * 1000L;
+
+        log.info("[Middleware] GET /events/poll solicitado. wait={}s max={} authPresent={}", waitMs / 1000, max, authorization != null && !authorization.isBlank());
+        ModuleFeed feed = feedFor(clientId, offset);
+        var messages = feed.next(limit);
+        if (!messages.isEmpty() || waitMs == 0) {
+            return completed(ResponseEntity.ok(messages));
+        }
+
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(waitMs, ResponseEntity.ok(List.of()));
+        Object lock = new Object();
+        boolean[] done = new boolean[1];
+        Runnable deliver = () -> {
+            // bajo lock: un aviso no drena mensajes si la espera ya venció (se perderían)
+            synchronized (lock) {
+                if (done[0]) return;
+                var arrived = feed.next(limit);
+                if (arrived.isEmpty()) return;
+                done[0] = true;
+                result.setResult(ResponseEntity.ok(arrived));
+            }
+        };
+        Runnable unsubscribe = feed.subscribe(deliver);
+        result.onTimeout(() -> {
+            synchronized (lock) { done[0] = true; }
+        });
+        result.onCompletion(unsubscribe);
+        // un mensaje pudo llegar entre el primer poll y el subscribe
+        deliver.run();
+        return result;
+    }
+
+    /**
+     * Server-Sent Events: mantiene la conexión abierta y empuja cada mensaje del módulo apenas se encola
+     * (evento "event", data = EventDto en JSON, o la entrada del log si está habilitado, desde offset).
+     * Sin token válido o módulo no autorizado responde 401/403 sin cuerpo.
+     */
+    @GetMapping(path = "/poll/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                   @RequestParam(value = "offset", required = false) Long offset) {
+        String clientId;
+        try {
+            clientId = tokenService.validateAndExtractClientId(authorization);
+        } catch (TokenValidationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!moduleRegistry.isAuthorizedModule(clientId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        log.info("[Middleware] GET /events/poll solicitado. authPresent={}", authorization != null && !authorization.isBlank());
-        var messages = moduleMessageStore.pollMessagesForModule(clientId);
-        return ResponseEntity.ok(messages);
+        ModuleFeed feed = feedFor(clientId, offset);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Runnable[] unsubscribe = new Runnable[1];
+        AtomicBoolean scheduled = new AtomicBoolean();
+        AtomicBoolean closed = new AtomicBoolean();
+        Runnable drain = () -> {
+            // un drain a la vez por conexión: los mensajes salen en el orden en que se encolaron
+            synchronized (emitter) {
+                scheduled.set(false);
+                if (closed.get()) return;
+                List<?> pending;
+                while (!(pending = feed.next(Integer.MAX_VALUE)).isEmpty()) {
+                    for (int i = 0; i < pending.size(); i++) {
+                        try {
+                            emitter.send(SseEmitter.event().name("event").data(pending.get(i), MediaType.APPLICATION_JSON));
+                        } catch (Exception ex) {
+                            // conexión cortada: lo no enviado vuelve a la cola (o sigue en el log) para el próximo poll/stream
+                            closed.set(true);
+                            unsubscribe[0].run();
+                            feed.unsent(pending.subList(i, pending.size()));
+                            log.info("[Middleware] SSE de {} cerrado ({}); {} mensajes sin enviar", clientId, ex.getMessage(), pending.size() - i);
+                            emitter.completeWithError(ex);
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        Runnable schedule = () -> {
+            if (closed.get() || !scheduled.compareAndSet(false, true)) return;
+            if (modulePushExecutor == null) {
+                drain.run();
+                return;
+            }
+            try {
+                modulePushExecutor.execute(drain);
+            } catch (RejectedExecutionException ex) {
+                // quedan en la cola del módulo; se reintenta con el próximo mensaje
+                scheduled.set(false);
+                log.warn("[Middleware] Cola de push SSE llena; mensajes de {} quedan pendientes", clientId);
+            }
+        };
+        unsubscribe[0] = feed.subscribe(schedule);
+        Runnable close = () -> {
+            closed.set(true);
+            unsubscribe[0].run();
+        };
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(ex -> close.run());
+        log.info("[Middleware] GET /events/poll/stream conectado. module={}", clientId);
+        // lo que ya estaba encolado se envía apenas se conecta
+        schedule.run();
+        return ResponseEntity.ok(emitter);
+    }
+
+    private ModuleFeed feedFor(String clientId, Long offset) {
+        if (moduleDeliveryLog != null && moduleDeliveryLog.isEnabled()) {
+            return moduleDeliveryLog.feed(clientId, offset != null ? offset : moduleDeliveryLog.committedOffset(clientId));
+        }
+        return moduleMessageStore.feed(clientId);
+    }
+
+    private static DeferredResult<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
     }
 
     @PostMapping("/{eventId}/ack")
@@ -210,6 +573,24 @@ public class EventController {
             consumedAt = parseTimestamp(body.get("consumedAt"));
         }
 
+        // Log de entrega: el ACK puede confirmar además el offset procesado por el módulo
+        Long ackOffset = null;
+        if (body != null && body.get("offset") != null && moduleDeliveryLog != null && moduleDeliveryLog.isEnabled()) {
+            Object raw = body.get("offset");
+            try {
+                ackOffset = raw instanceof Number n ? n.longValue() : Long.parseLong(raw.toString().trim());
+            } catch (NumberFormatException e) {
+                ackOffset = -1L;
+            }
+            if (ackOffset < 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "invalid offset"));
+            }
+            long endOffset = moduleDeliveryLog.endOffset(clientId);
+            if (ackOffset > endOffset) {
+                return ResponseEntity.badRequest().body(Map.of("error", "offset beyond end of log", "endOffset", endOffset));
+            }
+        }
+
         var result = ackService.ack(eventId, consumer, consumedAt);
         var ent = result.entity;
 
@@ -225,14 +606,23 @@ public class EventController {
         HttpStatus status = result.created ? HttpStatus.CREATED : HttpStatus.OK;
         log.info("[Middleware] ACK recibido. consumer={} eventId={} httpStatus={}", consumer, eventId, status.value());
 
-        // Reenviar el ACK al Core
-        try {
-            coreApiClient.forwardAckToCore(resp);
-            log.info("[Middleware] ACK reenviado al Core para eventId={}", ent.getEventId());
-        } catch (Exception e) {
-            log.error("[Middleware] Error reenviando ACK al Core: {}", e.getMessage(), e);
+        // Reenviar el ACK al Core: con AckRelay queda pendiente en event_acks y se envía por lotes
+        if (ackRelay != null && ackRelay.isEnabled()) {
+            ackRelay.wakeUp();
+        } else {
+            try {
+                coreApiClient.forwardAckToCore(resp);
+                log.info("[Middleware] ACK reenviado al Core para eventId={}", ent.getEventId());
+            } catch (Exception e) {
+                log.error("[Middleware] Error reenviando ACK al Core: {}", e.getMessage(), e);
+            }
         }
 
+        if (ackOffset != null) {
+            Map<String, Object> withOffset = new LinkedHashMap<>(resp);
+            withOffset.put("committedOffset", moduleDeliveryLog.commit(clientId, ackOffset));
+            return ResponseEntity.status(status).body(withOffset);
+        }
         return ResponseEntity.status(status).body(resp);
     }
 
@@ -243,6 +633,192 @@ public class EventController {
         return acknowledgeEvent(authorization, eventId, body);
     }
 
+    /**
+     * ACK masivo: [{"eventId": ..., "consumedAt": ..., "offset": ...}, ...]. Los items válidos se
+     * aplican en una sola transacción (upsert nativo en batch, ver AckService.ackBatch) y se
+     * reenvían a Core (uno por uno a /core/ack, o por lotes con AckRelay). Responde un resultado
+     * por item, en el orden recibido.
+     */
+    @PostMapping("/ack")
+    public ResponseEntity<?> acknowledgeEvents(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                               @RequestBody List<Map<String, Object>> bodies) {
+        String clientId;
+        try {
+            clientId = tokenService.validateAndExtractClientId(authorization);
+        } catch (TokenService.TokenValidationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+        }
+        if (!moduleRegistry.isAuthorizedModule(clientId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Module not authorized", "clientId", clientId));
+        }
+
+        if (bodies == null || bodies.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "batch is empty"));
+        }
+        if (bodies.size() > maxAckBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", "batch too large", "maxBatchSize", maxAckBatchSize));
+        }
+
+        boolean logEnabled = moduleDeliveryLog != null && moduleDeliveryLog.isEnabled();
+        List<Map<String, Object>> results = new ArrayList<>(bodies.size());
+        List<AckService.AckItem> items = new ArrayList<>(bodies.size());
+        List<Integer> itemIdx = new ArrayList<>(bodies.size());
+        long maxOffset = -1L;
+        long endOffset = -1L;
+        for (int i = 0; i < bodies.size(); i++) {
+            Map<String, Object> body = bodies.get(i);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("index", i);
+            results.add(item);
+
+            Object rawId = body != null ? body.get("eventId") : null;
+            String eventId = rawId != null ? rawId.toString() : null;
+            item.put("eventId", eventId);
+            if (!isUuid(eventId)) {
+                item.put("error", "invalid eventId");
+                continue;
+            }
+            if (logEnabled && body.get("offset") != null) {
+                Object raw = body.get("offset");
+                long offset;
+                try {
+                    offset = raw instanceof Number n ? n.longValue() : Long.parseLong(raw.toString().trim());
+                } catch (NumberFormatException e) {
+                    offset = -1L;
+                }
+                if (offset < 0) {
+                    item.put("error", "invalid offset");
+                    continue;
+                }
+                if (endOffset < 0) endOffset = moduleDeliveryLog.endOffset(clientId);
+                if (offset > endOffset) {
+                    item.put("error", "offset beyond end of log");
+                    item.put("endOffset", endOffset);
+                    continue;
+                }
+                maxOffset = Math.max(maxOffset, offset);
+            }
+            Instant consumedAt = body.get("consumedAt") != null ? parseTimestamp(body.get("consumedAt")) : null;
+            items.add(new AckService.AckItem(eventId, consumedAt));
+            itemIdx.add(i);
+        }
+
+        String consumer = originMapper.map(clientId);
+        List<AckService.AckResult> acked = items.isEmpty() ? List.of() : ackService.ackBatch(consumer, items);
+        List<Map<String, Object>> forCore = new ArrayList<>(acked.size());
+        int created = 0;
+        for (int k = 0; k < acked.size(); k++) {
+            var ent = acked.get(k).entity;
+            if (acked.get(k).created) created++;
+            Map<String, Object> ack = Map.of(
+                    "eventId", ent.getEventId(),
+                    "consumer", ent.getConsumer(),
+                    "status", ent.getStatus(),
+                    "attempts", ent.getAttempts(),
+                    "firstSeenAt", ent.getFirstSeenAt(),
+                    "lastSeenAt", ent.getLastSeenAt()
+            );
+            forCore.add(ack);
+            Map<String, Object> item = results.get(itemIdx.get(k));
+            item.putAll(ack);
+            item.put("created", acked.get(k).created);
+        }
+        log.info("[Middleware] ACK masivo recibido. consumer={} items={} aplicados={} nuevos={}", consumer, bodies.size(), acked.size(), created);
+
+        // Con AckRelay el lote sale en un solo POST a /core/ack/batch junto con los demás ACKs pendientes;
+        // sin relay cada ACK va a /core/ack como en el ACK individual (Core no expone /core/ack/batch)
+        if (!forCore.isEmpty() && ackRelay != null && ackRelay.isEnabled()) {
+            ackRelay.wakeUp();
+        } else {
+            for (Map<String, Object> ack : forCore) {
+                try {
+                    coreApiClient.forwardAckToCore(ack);
+                } catch (Exception e) {
+                    log.error("[Middleware] Error reenviando ACK al Core para eventId={}: {}", ack.get("eventId"), e.getMessage(), e);
+                }
+            }
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("consumer", consumer);
+        resp.put("acknowledged", acked.size());
+        resp.put("created", created);
+        resp.put("results", results);
+        if (maxOffset >= 0) {
+            resp.put("committedOffset", moduleDeliveryLog.commit(clientId, maxOffset));
+        }
+        return ResponseEntity.ok(resp);
+    }
+
+    /**
+     * Normaliza el body recibido a un {@link Event} en estado RECEIVED.
+     * Devuelve null si falta el type (el caller responde 400). Un payload objeto se
+     * guarda como árbol (payloadNode) y se serializa una única vez al persistir.
+     */
+    private Event toEvent(JsonNode body, String clientId) {
+        String type = textOf(body.get("type"));
+        JsonNode payloadNode = body.get("payload");
+        JsonNode tree = null;
+        Map<String, Object> payload = null;
+        if (payloadNode != null && payloadNode.isObject()) {
+            tree = payloadNode;
+        } else if (payloadNode != null && payloadNode.isTextual()) {
+            String s = payloadNode.textValue();
+            try {
+                // intentar parsear como JSON
+                JsonNode parsed = objectMapper.readTree(s);
+                if (parsed != null && parsed.isObject()) tree = parsed;
+                else payload = Map.of("value", s);
+            } catch (Exception ex) {
+                // si no es JSON, guardar como string simple
+                payload = Map.of("value", s);
+            }
+        } else if (payloadNode == null || payloadNode.isNull()) {
+            payload = Map.of();
+        } else {
+            // try to convert to map
+            payload = objectMapper.convertValue(payloadNode, Map.class);
+        }
+
+        Instant timestamp = parseTimestamp(toPlain(body.get("timestamp")));
+
+        String originModuleRaw = textOf(body.get("originModule"));
+        String originModuleFinal = clientId; // SIEMPRE usar el clientId del token
+        if (originModuleRaw != null && !originModuleRaw.isBlank() && !originModuleRaw.equals(clientId)) {
+            log.warn("[Middleware] originModule provisto ('{}') no coincide con token ('{}'). Se usará el del token.", originModuleRaw, clientId);
+        }
+
+        if (type == null || type.isBlank()) {
+            log.warn("[Middleware] type missing in request");
+            return null;
+        }
+        if (timestamp == null) {
+            timestamp = Instant.now();
+        }
+
+        Event event = new Event(type, payload, timestamp, originModuleFinal, EventStatus.RECEIVED);
+        if (tree != null) event.setPayloadNode(tree);
+        return event;
+    }
+
+    private String textOf(JsonNode node) {
+        if (node == null || node.isNull()) return null;
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+
+    // Escalares y arrays chicos (timestamp) al formato que espera parseTimestamp
+    private Object toPlain(JsonNode node) {
+        if (node == null || node.isNull()) return null;
+        return objectMapper.convertValue(node, Object.class);
+    }
+
+    private List<String> fieldNames(JsonNode body) {
+        if (body == null) return List.of();
+        List<String> names = new ArrayList<>(body.size());
+        body.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
     private boolean isUuid(String s) {
         if (!StringUtils.hasText(s)) return false;
         try {
@@ -258,7 +834,8 @@ public class EventController {
         return String.valueOf(o);
     }
 
-    private Instant parseTimestamp(Object ts) {
+    // Paquete: lo usa ParseTimestampBenchmark (src/jmh)
+    static Instant parseTimestamp(Object ts) {
         if (ts == null) return null;
         if (ts instanceof Number) {
             long v = ((Number) ts).longValue();
@@ -300,7 +877,7 @@ public class EventController {
         return null;
     }
 
-    private int toInt(Object o) {
+    private static int toInt(Object o) {
         if (o instanceof Number) return ((Number) o).intValue();
         return Integer.parseInt(String.valueOf(o));
     }
@@ -1,6 +1,12 @@
 package com.example.kafkamiddleware.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
 
 import java.time.Instant;
 import java.util.Map;
@@ -10,6 +16,9 @@ import java.util.UUID;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Event {
 
+    private static final ObjectMapper NODE_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
     private String id;
     private String type;
     private Map<String, Object> payload;
@@ -17,6 +26,26 @@ public class Event {
     private String originModule;
     private EventStatus status;
 
+    // Estado interno del outbox (no forma parte del contrato JSON)
+    @JsonIgnore
+    private int deliveryAttempts;
+    @JsonIgnore
+    private Instant nextAttemptAt;
+
+    // Payload tal como se parseó del request: se valida y persiste sin pasar por un Map;
+    // el Map de getPayload() se arma solo si alguien lo pide
+    @JsonIgnore
+    private JsonNode payloadNode;
+
+    // Payload tal como está guardado en payload_json (lecturas desde la BD): se escribe crudo en la
+    // respuesta y solo se parsea si alguien pide getPayload()
+    @JsonIgnore
+    private String payloadJson;
+
+    // Se decide una sola vez, al cargar payloadJson: si se escribe crudo o por el fallback {"raw": ...}
+    @JsonIgnore
+    private boolean payloadJsonIsObject;
+
     public Event() {
         this.id = UUID.randomUUID().toString();
     }
@@ -46,12 +75,87 @@ public class Event {
         this.type = type;
     }
 
+    @JsonIgnore
     public Map<String, Object> getPayload() {
+        if (payload == null && payloadNode != null) {
+            payload = NODE_MAPPER.convertValue(payloadNode, MAP_TYPE);
+        } else if (payload == null && payloadJson != null) {
+            payload = parsePayloadJson(payloadJson);
+        }
         return payload;
     }
 
+    @JsonProperty("payload")
     public void setPayload(Map<String, Object> payload) {
         this.payload = payload;
+        this.payloadNode = null;
+        this.payloadJson = null;
+        this.payloadJsonIsObject = false;
+    }
+
+    /**
+     * Valor que se serializa como "payload": el JSON guardado tal cual si lo hay, si no el árbol
+     * del request o el Map. Así GET /events no hace parse + re-serialización por cada evento.
+     */
+    @JsonProperty("payload")
+    public Object payloadForJson() {
+        if (payload == null && payloadNode == null && payloadJsonIsObject) {
+            return new RawValue(payloadJson);
+        }
+        return payloadNode != null ? payloadNode : getPayload();
+    }
+
+    @JsonIgnore
+    public JsonNode getPayloadNode() {
+        return payloadNode;
+    }
+
+    public void setPayloadNode(JsonNode payloadNode) {
+        this.payloadNode = payloadNode;
+        this.payload = null;
+        this.payloadJson = null;
+        this.payloadJsonIsObject = false;
+    }
+
+    @JsonIgnore
+    public String getPayloadJson() {
+        return payloadJson;
+    }
+
+    public void setPayloadJson(String payloadJson) {
+        this.payloadJson = payloadJson;
+        this.payloadJsonIsObject = isRawObject(payloadJson);
+        this.payload = null;
+        this.payloadNode = null;
+    }
+
+    private static Map<String, Object> parsePayloadJson(String json) {
+        try {
+            return NODE_MAPPER.readValue(json, MAP_TYPE);
+        } catch (Exception ex) {
+            return Map.of("raw", json);
+        }
+    }
+
+    // Chequeo barato (sin parsear): EventStore solo guarda JSON válido (toJson), así que basta con ver que sea un
+    // objeto. Filas viejas del fallback String.valueOf(map) ("{k=v}") tienen una clave sin comillas tras la llave
+    // y van por el fallback {"raw": ...}
+    private static boolean isRawObject(String json) {
+        if (json == null) return false;
+        int first = nextNonBlank(json, 0);
+        if (first < 0 || json.charAt(first) != '{') return false;
+        int second = nextNonBlank(json, first + 1);
+        if (second < 0 || (json.charAt(second) != '"' && json.charAt(second) != '}')) return false;
+        int last = json.length() - 1;
+        while (last > second && Character.isWhitespace(json.charAt(last))) last--;
+        return json.charAt(last) == '}';
+    }
+
+    private static int nextNonBlank(String s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (!Character.isWhitespace(s.charAt(i))) return i;
+        }
+        return -1;
     }
 
     public Instant getTimestamp() {
@@ -78,17 +182,33 @@ public class Event {
         this.status = status;
     }
 
+    public int getDeliveryAttempts() {
+        return deliveryAttempts;
+    }
+
+    public void setDeliveryAttempts(int deliveryAttempts) {
+        this.deliveryAttempts = deliveryAttempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Event event = (Event) o;
-        return Objects.equals(type, event.type) && Objects.equals(payload, event.payload) && Objects.equals(timestamp, event.timestamp) && Objects.equals(originModule, event.originModule);
+        return Objects.equals(type, event.type) && Objects.equals(getPayload(), event.getPayload()) && Objects.equals(timestamp, event.timestamp) && Objects.equals(originModule, event.originModule);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, payload, timestamp, originModule);
+        return Objects.hash(type, getPayload(), timestamp, originModule);
     }
 }
 
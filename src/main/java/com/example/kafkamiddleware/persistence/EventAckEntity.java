@@ -6,6 +6,9 @@ import java.time.Instant;
 @Entity
 @Table(name = "event_acks", uniqueConstraints = {
         @UniqueConstraint(name = "uk_event_ack_event_consumer", columnNames = {"event_id", "consumer"})
+}, indexes = {
+        // AckRelay: ACKs pendientes de confirmar por Core, en orden de vencimiento
+        @Index(name = "idx_event_acks_next_relay", columnList = "next_relay_at")
 })
 public class EventAckEntity {
 
@@ -31,6 +34,13 @@ public class EventAckEntity {
     @Column(name = "attempts", nullable = false)
     private int attempts;
 
+    // Outbox del reenvío a Core: null cuando Core ya confirmó el último estado del ACK
+    @Column(name = "next_relay_at")
+    private Instant nextRelayAt;
+
+    @Column(name = "relay_attempts", nullable = false)
+    private int relayAttempts;
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -51,5 +61,11 @@ public class EventAckEntity {
 
     public int getAttempts() { return attempts; }
     public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public Instant getNextRelayAt() { return nextRelayAt; }
+    public void setNextRelayAt(Instant nextRelayAt) { this.nextRelayAt = nextRelayAt; }
+
+    public int getRelayAttempts() { return relayAttempts; }
+    public void setRelayAttempts(int relayAttempts) { this.relayAttempts = relayAttempts; }
 }
 
@@ -1,10 +1,37 @@
 package com.example.kafkamiddleware.persistence;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface EventAckRepository extends JpaRepository<EventAckEntity, Long> {
+public interface EventAckRepository extends JpaRepository<EventAckEntity, Long>, EventAckRepositoryCustom {
     Optional<EventAckEntity> findByEventIdAndConsumer(String eventId, String consumer);
-}
 
+    List<EventAckEntity> findByConsumerAndEventIdIn(String consumer, Collection<String> eventIds);
+
+    // Solo los ids (sin cargar entidades): el upsert nativo posterior no deja copias viejas en el contexto JPA
+    @Query("select a.eventId from EventAckEntity a where a.consumer = :consumer and a.eventId in :eventIds")
+    List<String> findAckedEventIds(@Param("consumer") String consumer, @Param("eventIds") Collection<String> eventIds);
+
+    @Query("select a from EventAckEntity a where a.nextRelayAt is not null and a.nextRelayAt <= :now order by a.nextRelayAt asc")
+    List<EventAckEntity> findDueForRelay(@Param("now") Instant now, Pageable pageable);
+
+    // Solo si no hubo un ACK nuevo después de tomar el lote (ese vuelve a quedar pendiente con next_relay_at > claimedAt)
+    @Transactional
+    @Modifying
+    @Query("update EventAckEntity a set a.nextRelayAt = null, a.relayAttempts = 0 where a.id in :ids and a.nextRelayAt <= :claimedAt")
+    int markRelayed(@Param("ids") Collection<Long> ids, @Param("claimedAt") Instant claimedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update EventAckEntity a set a.nextRelayAt = :next, a.relayAttempts = a.relayAttempts + 1 where a.id in :ids and a.nextRelayAt <= :claimedAt")
+    int scheduleRelayRetry(@Param("ids") Collection<Long> ids, @Param("claimedAt") Instant claimedAt, @Param("next") Instant next);
+}
@@ -0,0 +1,25 @@
+package com.example.kafkamiddleware.persistence;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Upsert atómico de ACKs en SQL nativo (ver EventAckRepositoryCustomImpl). En una sola sentencia
+ * inserta el ACK o, si ya existe el par (event_id, consumer), suma attempts y mueve last_seen_at
+ * solo hacia adelante, sin leer la fila antes: los ACKs concurrentes no pierden incrementos.
+ */
+public interface EventAckRepositoryCustom {
+
+    /** ACK a aplicar: eventId y el momento en que se consumió. */
+    record AckUpsert(String eventId, Instant seenAt) {
+    }
+
+    /** false si el motor no tiene upsert nativo soportado (solo H2 y MySQL/MariaDB). */
+    boolean supportsUpsert();
+
+    /** Upsert de un ACK; relayAt queda como next_relay_at (pendiente de reenvío a Core; null = sin relay). */
+    void upsert(String eventId, String consumer, Instant seenAt, Instant relayAt);
+
+    /** Upsert de un lote del mismo consumer en un batch JDBC. */
+    void upsertAll(String consumer, List<AckUpsert> acks, Instant relayAt);
+}
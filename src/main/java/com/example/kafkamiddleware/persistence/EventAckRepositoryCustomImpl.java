@@ -0,0 +1,105 @@
+package com.example.kafkamiddleware.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+class EventAckRepositoryCustomImpl implements EventAckRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(EventAckRepositoryCustomImpl.class);
+
+    // Upsert nativo por motor: MERGE (H2) o INSERT ... ON DUPLICATE KEY UPDATE (MySQL/MariaDB).
+    // El id es IDENTITY; attempts suma 1, first_seen_at se conserva y last_seen_at nunca retrocede.
+    static final String H2_UPSERT = "MERGE INTO event_acks t USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS VARCHAR(64)))) s(event_id, consumer)"
+            + " ON t.event_id = s.event_id AND t.consumer = s.consumer"
+            + " WHEN MATCHED THEN UPDATE SET last_seen_at = GREATEST(t.last_seen_at, ?), attempts = t.attempts + 1, next_relay_at = ?"
+            + " WHEN NOT MATCHED THEN INSERT (event_id, consumer, status, first_seen_at, last_seen_at, attempts, next_relay_at, relay_attempts)"
+            + " VALUES (s.event_id, s.consumer, 'CONSUMED', ?, ?, 1, ?, 0)";
+    static final String MYSQL_UPSERT = "INSERT INTO event_acks (event_id, consumer, status, first_seen_at, last_seen_at, attempts, next_relay_at, relay_attempts)"
+            + " VALUES (?, ?, 'CONSUMED', ?, ?, 1, ?, 0)"
+            + " ON DUPLICATE KEY UPDATE last_seen_at = GREATEST(last_seen_at, VALUES(last_seen_at)), attempts = attempts + 1, next_relay_at = VALUES(next_relay_at)";
+
+    // Mismo criterio que Hibernate (hibernate.jdbc.time_zone=UTC) al escribir Instants
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    EventAckRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean supportsUpsert() {
+        return !upsertSql().isEmpty();
+    }
+
+    @Override
+    public void upsert(String eventId, String consumer, Instant seenAt, Instant relayAt) {
+        String sql = requireUpsertSql();
+        try {
+            jdbcTemplate.update(sql, ps -> bind(ps, sql, eventId, consumer, seenAt, relayAt));
+        } catch (DuplicateKeyException race) {
+            // H2: dos MERGE concurrentes pueden ver NOT MATCHED a la vez; el segundo ya encuentra la fila
+            jdbcTemplate.update(sql, ps -> bind(ps, sql, eventId, consumer, seenAt, relayAt));
+        }
+    }
+
+    @Override
+    public void upsertAll(String consumer, List<AckUpsert> acks, Instant relayAt) {
+        if (acks.isEmpty()) return;
+        String sql = requireUpsertSql();
+        jdbcTemplate.batchUpdate(sql, acks, acks.size(),
+                (ps, ack) -> bind(ps, sql, ack.eventId(), consumer, ack.seenAt(), relayAt));
+    }
+
+    private static void bind(PreparedStatement ps, String sql, String eventId, String consumer, Instant seenAt, Instant relayAt) throws SQLException {
+        Timestamp seen = Timestamp.from(seenAt);
+        Timestamp relay = relayAt != null ? Timestamp.from(relayAt) : null;
+        ps.setString(1, eventId);
+        ps.setString(2, consumer);
+        if (H2_UPSERT.equals(sql)) {
+            setUtc(ps, 3, seen);
+            setUtc(ps, 4, relay);
+            setUtc(ps, 5, seen);
+            setUtc(ps, 6, seen);
+            setUtc(ps, 7, relay);
+        } else {
+            setUtc(ps, 3, seen);
+            setUtc(ps, 4, seen);
+            setUtc(ps, 5, relay);
+        }
+    }
+
+    private static void setUtc(PreparedStatement ps, int index, Timestamp ts) throws SQLException {
+        ps.setTimestamp(index, ts, Calendar.getInstance(UTC));
+    }
+
+    private String requireUpsertSql() {
+        String sql = upsertSql();
+        if (sql.isEmpty()) throw new UnsupportedOperationException("native ACK upsert is not supported on this database");
+        return sql;
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            String p = product != null ? product.toLowerCase() : "";
+            sql = p.contains("h2") ? H2_UPSERT : (p.contains("mysql") || p.contains("mariadb")) ? MYSQL_UPSERT : "";
+            if (sql.isEmpty()) log.warn("[ACK] Motor {} sin upsert nativo; los ACKs se aplican con lectura previa (JPA)", product);
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
@@ -1,15 +1,22 @@
 package com.example.kafkamiddleware.persistence;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
 import java.time.Instant;
 
 @Entity
 @Table(name = "events", indexes = {
-        @Index(name = "idx_events_status", columnList = "status")
+        @Index(name = "idx_events_status_next_attempt", columnList = "status, next_attempt_at"),
+        // Paginación keyset de GET /events: orden (timestamp, id), con y sin filtro por status/type/origen
+        @Index(name = "idx_events_ts_id", columnList = "timestamp, id"),
+        @Index(name = "idx_events_status_ts_id", columnList = "status, timestamp, id"),
+        @Index(name = "idx_events_type_ts_id", columnList = "type, timestamp, id"),
+        @Index(name = "idx_events_origin_ts_id", columnList = "origin_module, timestamp, id")
 }, uniqueConstraints = {
         @UniqueConstraint(name = "uk_events_signature", columnNames = {"signature"})
 })
-public class EventEntity {
+public class EventEntity implements Persistable<String> {
 
     @Id
     @Column(length = 36)
@@ -34,6 +41,17 @@ public class EventEntity {
     @Column(nullable = false, unique = true, length = 128)
     private String signature;
 
+    // Outbox: intentos de entrega a Core y cuándo toca el siguiente
+    @Column(name = "delivery_attempts", nullable = false)
+    private int deliveryAttempts;
+
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+
+    // El id se asigna en la app (UUID): sin esto Spring Data hace merge() y un SELECT previo por cada insert
+    @Transient
+    private boolean isNew = true;
+
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
@@ -54,4 +72,17 @@ public class EventEntity {
 
     public String getSignature() { return signature; }
     public void setSignature(String signature) { this.signature = signature; }
+
+    public int getDeliveryAttempts() { return deliveryAttempts; }
+    public void setDeliveryAttempts(int deliveryAttempts) { this.deliveryAttempts = deliveryAttempts; }
+
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
 }
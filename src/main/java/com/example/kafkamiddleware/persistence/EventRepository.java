@@ -1,12 +1,46 @@
 package com.example.kafkamiddleware.persistence;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface EventRepository extends JpaRepository<EventEntity, String> {
     Optional<EventEntity> findBySignature(String signature);
+    List<EventEntity> findBySignatureIn(Collection<String> signatures);
     List<EventEntity> findByStatus(String status);
+
+    // Carga del filtro de Bloom de firmas: páginas keyset por id de (id, signature), sin traer el payload
+    @Query("select e.id, e.signature from EventEntity e where (:afterId is null or e.id > :afterId) order by e.id asc")
+    List<Object[]> findSignaturesAfter(@Param("afterId") String afterId, Pageable pageable);
+
+    // Outbox: eventos pendientes cuyo próximo intento ya venció (usa idx_events_status_next_attempt)
+    @Query("select e from EventEntity e where e.status = :status and (e.nextAttemptAt is null or e.nextAttemptAt <= :now) order by e.nextAttemptAt asc")
+    Slice<EventEntity> findDueForDelivery(@Param("status") String status, @Param("now") Instant now, Pageable pageable);
+
+    // GET /events: página keyset ordenada por (timestamp, id) a partir del cursor (afterTs, afterId); filtros opcionales
+    @Query("select e from EventEntity e where (:status is null or e.status = :status)"
+            + " and (:type is null or e.type = :type)"
+            + " and (:origin is null or e.originModule = :origin)"
+            + " and (:afterTs is null or e.timestamp > :afterTs or (e.timestamp = :afterTs and e.id > :afterId))"
+            + " order by e.timestamp asc, e.id asc")
+    Slice<EventEntity> findPage(@Param("status") String status,
+                                @Param("type") String type,
+                                @Param("origin") String originModule,
+                                @Param("afterTs") Instant afterTs,
+                                @Param("afterId") String afterId,
+                                Pageable pageable);
+
+    // Reenvío por lotes: un único UPDATE para todo el lote aceptado por Core
+    @Modifying(clearAutomatically = true)
+    @Query("update EventEntity e set e.status = :status where e.id in :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<String> ids, @Param("status") String status);
 }
 
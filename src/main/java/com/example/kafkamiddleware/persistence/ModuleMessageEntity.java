@@ -0,0 +1,90 @@
+package com.example.kafkamiddleware.persistence;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Entrada del log de entrega por módulo (append-only). La clave (module_id, msg_offset) es también
+ * el índice de lectura: los polls recorren el log de un módulo por offset creciente.
+ */
+@Entity
+@Table(name = "module_messages")
+@IdClass(ModuleMessageEntity.Key.class)
+public class ModuleMessageEntity implements Persistable<ModuleMessageEntity.Key> {
+
+    @Id
+    @Column(name = "module_id", length = 64)
+    private String moduleId;
+
+    @Id
+    @Column(name = "msg_offset")
+    private long offset;
+
+    @Column(name = "event_id", length = 36)
+    private String eventId;
+
+    @Lob
+    @Column(name = "message_json", nullable = false, columnDefinition = "LONGTEXT")
+    private String messageJson;
+
+    @Column(name = "appended_at", nullable = false)
+    private Instant appendedAt;
+
+    // Offsets asignados por la app: sin esto Spring Data haría merge() con un SELECT previo por fila
+    @Transient
+    private boolean isNew = true;
+
+    public String getModuleId() { return moduleId; }
+    public void setModuleId(String moduleId) { this.moduleId = moduleId; }
+
+    public long getOffset() { return offset; }
+    public void setOffset(long offset) { this.offset = offset; }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public String getMessageJson() { return messageJson; }
+    public void setMessageJson(String messageJson) { this.messageJson = messageJson; }
+
+    public Instant getAppendedAt() { return appendedAt; }
+    public void setAppendedAt(Instant appendedAt) { this.appendedAt = appendedAt; }
+
+    @Override
+    public Key getId() { return new Key(moduleId, offset); }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    public static class Key implements Serializable {
+        private String moduleId;
+        private long offset;
+
+        public Key() {
+        }
+
+        public Key(String moduleId, long offset) {
+            this.moduleId = moduleId;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return offset == key.offset && Objects.equals(moduleId, key.moduleId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(moduleId, offset);
+        }
+    }
+}
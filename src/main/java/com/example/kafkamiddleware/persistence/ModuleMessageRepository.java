@@ -0,0 +1,27 @@
+package com.example.kafkamiddleware.persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ModuleMessageRepository extends JpaRepository<ModuleMessageEntity, ModuleMessageEntity.Key> {
+
+    // Lectura secuencial por la PK (module_id, msg_offset)
+    @Query("select m from ModuleMessageEntity m where m.moduleId = :moduleId and m.offset > :after order by m.offset asc")
+    List<ModuleMessageEntity> findAfter(@Param("moduleId") String moduleId, @Param("after") long afterOffset, Pageable pageable);
+
+    @Query("select max(m.offset) from ModuleMessageEntity m where m.moduleId = :moduleId")
+    Long findMaxOffset(@Param("moduleId") String moduleId);
+
+    // Retención: solo se borra lo ya confirmado por el módulo
+    @Transactional
+    @Modifying
+    @Query("delete from ModuleMessageEntity m where m.moduleId = :moduleId and m.offset <= :offset and m.appendedAt < :before")
+    int deleteCommittedBefore(@Param("moduleId") String moduleId, @Param("offset") long committedOffset, @Param("before") Instant before);
+}
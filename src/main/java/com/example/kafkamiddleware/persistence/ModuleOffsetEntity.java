@@ -0,0 +1,30 @@
+package com.example.kafkamiddleware.persistence;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/** Último offset del log de entrega confirmado (ACK) por cada módulo. */
+@Entity
+@Table(name = "module_offsets")
+public class ModuleOffsetEntity {
+
+    @Id
+    @Column(name = "module_id", length = 64)
+    private String moduleId;
+
+    @Column(name = "committed_offset", nullable = false)
+    private long committedOffset;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public String getModuleId() { return moduleId; }
+    public void setModuleId(String moduleId) { this.moduleId = moduleId; }
+
+    public long getCommittedOffset() { return committedOffset; }
+    public void setCommittedOffset(long committedOffset) { this.committedOffset = committedOffset; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
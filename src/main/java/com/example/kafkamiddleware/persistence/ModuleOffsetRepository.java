@@ -0,0 +1,18 @@
+package com.example.kafkamiddleware.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface ModuleOffsetRepository extends JpaRepository<ModuleOffsetEntity, String> {
+
+    // El offset confirmado solo avanza: un ACK atrasado o repetido no lo hace retroceder
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ModuleOffsetEntity o set o.committedOffset = :offset, o.updatedAt = :now where o.moduleId = :moduleId and o.committedOffset < :offset")
+    int advance(@Param("moduleId") String moduleId, @Param("offset") long offset, @Param("now") Instant now);
+}
@@ -0,0 +1,184 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.persistence.EventAckEntity;
+import com.example.kafkamiddleware.persistence.EventAckRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reenvío asíncrono de ACKs a Core. Cada ACK deja su fila de event_acks pendiente (next_relay_at);
+ * un hilo propio espera una ventana corta (linger-ms) para juntar los ACKs que llegan seguidos y
+ * los manda en un solo POST a /core/ack/batch. La fila deja de estar pendiente recién cuando Core
+ * responde 2xx; si falla se reprograma con el backoff de DeliveryRetryPolicy, sin límite de
+ * intentos, y sobrevive a un reinicio. Pensado para una sola instancia (como OutboxRelay).
+ */
+@Service
+public class AckRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(AckRelay.class);
+
+    @Value("${app.ack.relay.enabled:false}")
+    private boolean enabled;
+
+    // Ventana de coalescencia tras el primer ACK
+    @Value("${app.ack.relay.linger-ms:50}")
+    private long lingerMs = 50;
+
+    @Value("${app.ack.relay.batch-size:500}")
+    private int batchSize = 500;
+
+    // Sin avisos nuevos se revisa igual cada tanto (reintentos con backoff, pendientes de antes de un reinicio)
+    @Value("${app.ack.relay.poll-interval-ms:5000}")
+    private long pollIntervalMs = 5000;
+
+    private final EventAckRepository ackRepository;
+    private final CoreApiClient coreApiClient;
+    private final DeliveryRetryPolicy retryPolicy;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    // Guardado por signal
+    private final Object signal = new Object();
+    private boolean signaled;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public AckRelay(EventAckRepository ackRepository, CoreApiClient coreApiClient, DeliveryRetryPolicy retryPolicy) {
+        this.ackRepository = ackRepository;
+        this.coreApiClient = coreApiClient;
+        this.retryPolicy = retryPolicy;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        running = true;
+        worker = new Thread(this::relayLoop, "ack-relay");
+        worker.setDaemon(true);
+        worker.start();
+        if (meterRegistry != null) {
+            FunctionCounter.builder("ack.relay.sent", relayed, AtomicLong::get)
+                    .description("ACKs confirmados por Core")
+                    .register(meterRegistry);
+            FunctionCounter.builder("ack.relay.failed.batches", failedBatches, AtomicLong::get)
+                    .description("Lotes de ACKs rechazados o no entregados (se reintentan)")
+                    .register(meterRegistry);
+        }
+        log.info("[Middleware] Reenvío asíncrono de ACKs habilitado (lingerMs={}, batchSize={})", lingerMs, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (worker == null) return;
+        running = false;
+        wakeUp();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Aviso de que hay ACKs nuevos ya commiteados; el envío ocurre en el hilo del relay. */
+    public void wakeUp() {
+        synchronized (signal) {
+            signaled = true;
+            signal.notifyAll();
+        }
+    }
+
+    /** Envía a Core los ACKs pendientes vencidos, por lotes. Devuelve cuántos confirmó Core. */
+    public int relayDue() {
+        if (!coreApiClient.isForwardEnabled()) return 0;
+        int confirmed = 0;
+        while (true) {
+            Instant claimedAt = Instant.now();
+            List<EventAckEntity> due = ackRepository.findDueForRelay(claimedAt, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) break;
+            List<Long> ids = new ArrayList<>(due.size());
+            List<Map<String, Object>> body = new ArrayList<>(due.size());
+            int maxRelayAttempts = 0;
+            for (EventAckEntity ent : due) {
+                ids.add(ent.getId());
+                body.add(toCoreBody(ent));
+                maxRelayAttempts = Math.max(maxRelayAttempts, ent.getRelayAttempts());
+            }
+            if (!coreApiClient.forwardAcksToCore(body)) {
+                failedBatches.incrementAndGet();
+                Instant next = retryPolicy.nextAttemptAt(maxRelayAttempts + 1, claimedAt);
+                ackRepository.scheduleRelayRetry(ids, claimedAt, next);
+                log.warn("[Middleware] Core no confirmó el lote de {} ACKs; próximo intento {}", due.size(), next);
+                break;
+            }
+            ackRepository.markRelayed(ids, claimedAt);
+            confirmed += due.size();
+            if (due.size() < batchSize) break;
+        }
+        relayed.addAndGet(confirmed);
+        return confirmed;
+    }
+
+    /** Cuerpo por ACK que recibe Core (mismo formato que la respuesta de POST /events/{id}/ack). */
+    static Map<String, Object> toCoreBody(EventAckEntity ent) {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("eventId", ent.getEventId());
+        ack.put("consumer", ent.getConsumer());
+        ack.put("status", ent.getStatus());
+        ack.put("attempts", ent.getAttempts());
+        ack.put("firstSeenAt", ent.getFirstSeenAt());
+        ack.put("lastSeenAt", ent.getLastSeenAt());
+        return ack;
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                boolean woke = awaitSignal();
+                if (!running) break;
+                if (woke && lingerMs > 0) Thread.sleep(lingerMs);
+                relayDue();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                log.error("[Middleware] Error en el reenvío asíncrono de ACKs: {}", ex.getMessage(), ex);
+            }
+        }
+        // Último intento al apagar; lo que no salga queda pendiente en la tabla
+        try {
+            relayDue();
+        } catch (Exception ex) {
+            log.warn("[Middleware] ACKs pendientes al apagar quedan para el próximo arranque: {}", ex.getMessage());
+        }
+    }
+
+    private boolean awaitSignal() throws InterruptedException {
+        synchronized (signal) {
+            if (!signaled) signal.wait(pollIntervalMs);
+            boolean woke = signaled;
+            signaled = false;
+            return woke;
+        }
+    }
+}
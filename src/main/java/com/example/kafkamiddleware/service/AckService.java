@@ -3,13 +3,23 @@ package com.example.kafkamiddleware.service;
 import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.persistence.EventAckEntity;
 import com.example.kafkamiddleware.persistence.EventAckRepository;
+import com.example.kafkamiddleware.persistence.EventAckRepositoryCustom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class AckService {
@@ -19,6 +29,10 @@ public class AckService {
     private final EventAckRepository ackRepository;
     private final EventStore eventStore;
 
+    // Solo con AckRelay activo el ACK queda pendiente de reenvío (next_relay_at); si no, se reenvía en el request
+    @Value("${app.ack.relay.enabled:false}")
+    private boolean relayEnabled;
+
     public static class AckResult {
         public final EventAckEntity entity;
         public final boolean created;
@@ -28,6 +42,15 @@ public class AckService {
         }
     }
 
+    public static class AckItem {
+        public final String eventId;
+        public final Instant consumedAt;
+        public AckItem(String eventId, Instant consumedAt) {
+            this.eventId = eventId;
+            this.consumedAt = consumedAt;
+        }
+    }
+
     public AckService(EventAckRepository ackRepository, EventStore eventStore) {
         this.ackRepository = ackRepository;
         this.eventStore = eventStore;
@@ -36,12 +59,17 @@ public class AckService {
     @Transactional
     public AckResult ack(String eventId, String consumerCanonical, Instant consumedAt) {
         if (consumedAt == null) consumedAt = Instant.now();
+        if (ackRepository.supportsUpsert()) {
+            return ackAtomic(eventId, consumerCanonical, consumedAt);
+        }
 
+        // Motor sin upsert nativo: lectura previa e incremento en Java
         var existing = ackRepository.findByEventIdAndConsumer(eventId, consumerCanonical);
         if (existing.isPresent()) {
             var ent = existing.get();
             ent.setLastSeenAt(consumedAt);
             ent.setAttempts(ent.getAttempts() + 1);
+            ent.setNextRelayAt(relayAt());
             ackRepository.save(ent);
             log.info("[ACK] consumer={} eventId={} status={} attempts={} (idempotent)", consumerCanonical, eventId, ent.getStatus(), ent.getAttempts());
             return new AckResult(ent, false);
@@ -60,6 +88,7 @@ public class AckService {
         ent.setFirstSeenAt(consumedAt);
         ent.setLastSeenAt(consumedAt);
         ent.setAttempts(1);
+        ent.setNextRelayAt(relayAt());
         try {
             var saved = ackRepository.save(ent);
             log.info("[ACK] consumer={} eventId={} status={} attempts=1 (created)", consumerCanonical, eventId, saved.getStatus());
@@ -69,9 +98,66 @@ public class AckService {
             var ent2 = ackRepository.findByEventIdAndConsumer(eventId, consumerCanonical).orElseThrow();
             ent2.setLastSeenAt(consumedAt);
             ent2.setAttempts(ent2.getAttempts() + 1);
+            ent2.setNextRelayAt(relayAt());
             ackRepository.save(ent2);
             log.info("[ACK] consumer={} eventId={} status={} attempts={} (concurrent)", consumerCanonical, eventId, ent2.getStatus(), ent2.getAttempts());
             return new AckResult(ent2, false);
         }
     }
+
+    /**
+     * Upsert en una sola sentencia y lectura del resultado. La fila queda bloqueada por esta
+     * transacción hasta el commit, así que attempts == 1 identifica al ACK que la creó aunque
+     * lleguen duplicados en paralelo, y ningún incremento se pierde.
+     */
+    private AckResult ackAtomic(String eventId, String consumerCanonical, Instant consumedAt) {
+        ackRepository.upsert(eventId, consumerCanonical, consumedAt, relayAt());
+        var ent = ackRepository.findByEventIdAndConsumer(eventId, consumerCanonical).orElseThrow();
+        boolean created = ent.getAttempts() == 1;
+        if (created && eventStore.findById(eventId) == null) {
+            log.warn("[ACK] eventId={} no encontrado en store, se registra ACK igualmente.", eventId);
+        }
+        log.info("[ACK] consumer={} eventId={} status={} attempts={} ({})", consumerCanonical, eventId, ent.getStatus(), ent.getAttempts(), created ? "created" : "idempotent");
+        return new AckResult(ent, created);
+    }
+
+    /**
+     * Registra un lote de ACKs del mismo consumer en una transacción: una consulta de los ya
+     * existentes, un upsert nativo en batch y una lectura final. Devuelve un resultado por item,
+     * en el orden recibido (created=true solo la primera vez que se ve el par eventId/consumer).
+     */
+    @Transactional
+    public List<AckResult> ackBatch(String consumerCanonical, List<AckItem> items) {
+        if (items.isEmpty()) return List.of();
+        if (!ackRepository.supportsUpsert()) {
+            List<AckResult> out = new ArrayList<>(items.size());
+            for (AckItem item : items) out.add(ack(item.eventId, consumerCanonical, item.consumedAt));
+            return out;
+        }
+
+        Set<String> ids = items.stream().map(i -> i.eventId).collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<String> existing = new HashSet<>(ackRepository.findAckedEventIds(consumerCanonical, ids));
+        Instant now = Instant.now();
+        List<EventAckRepositoryCustom.AckUpsert> upserts = new ArrayList<>(items.size());
+        for (AckItem item : items) {
+            upserts.add(new EventAckRepositoryCustom.AckUpsert(item.eventId, item.consumedAt != null ? item.consumedAt : now));
+        }
+        // Con AckRelay, cada ACK (nuevo o repetido) queda pendiente de reenvío a Core
+        ackRepository.upsertAll(consumerCanonical, upserts, relayEnabled ? now : null);
+
+        Map<String, EventAckEntity> saved = ackRepository.findByConsumerAndEventIdIn(consumerCanonical, ids).stream()
+                .collect(Collectors.toMap(EventAckEntity::getEventId, Function.identity()));
+        List<AckResult> out = new ArrayList<>(items.size());
+        Set<String> seenInBatch = new HashSet<>();
+        for (AckItem item : items) {
+            boolean created = !existing.contains(item.eventId) && seenInBatch.add(item.eventId);
+            out.add(new AckResult(saved.get(item.eventId), created));
+        }
+        log.info("[ACK] consumer={} lote de {} ACKs aplicado ({} nuevos)", consumerCanonical, items.size(), out.stream().filter(r -> r.created).count());
+        return out;
+    }
+
+    private Instant relayAt() {
+        return relayEnabled ? Instant.now() : null;
+    }
 }
@@ -0,0 +1,67 @@
+package com.example.kafkamiddleware.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Forma canónica de un payload para la firma de dedupe: claves de cada objeto ordenadas (orden de
+ * String, por unidades UTF-16 como en RFC 8785), números normalizados (1, 1.0, 1.00 y 1e0 se
+ * escriben igual) y sin espacios. Dos payloads con el mismo contenido dan los mismos bytes sin
+ * importar el orden de campos o el formato numérico del módulo que los envió.
+ *
+ * Se escribe sobre un JsonGenerator (en EventSignature, directo al hasher); no es para guardar ni
+ * reenviar: el payload se persiste y se manda a Core tal como llegó.
+ */
+final class CanonicalJson {
+
+    private CanonicalJson() {
+    }
+
+    static void write(JsonNode node, JsonGenerator gen) throws IOException {
+        switch (node.getNodeType()) {
+            case OBJECT -> {
+                gen.writeStartObject();
+                List<String> names = new ArrayList<>(node.size());
+                node.fieldNames().forEachRemaining(names::add);
+                if (names.size() > 1) Collections.sort(names);
+                for (String name : names) {
+                    gen.writeFieldName(name);
+                    write(node.get(name), gen);
+                }
+                gen.writeEndObject();
+            }
+            case ARRAY -> {
+                gen.writeStartArray();
+                for (JsonNode child : node) write(child, gen);
+                gen.writeEndArray();
+            }
+            case NUMBER -> gen.writeNumber(normalizeNumber(node));
+            case STRING -> gen.writeString(node.textValue());
+            case BOOLEAN -> gen.writeBoolean(node.booleanValue());
+            case NULL, MISSING -> gen.writeNull();
+            // BINARY / POJO (solo si el árbol se armó desde objetos Java): su texto
+            default -> gen.writeString(node.asText());
+        }
+    }
+
+    /** Entero sin decimales ni exponente; decimal en notación plana sin ceros a la derecha. */
+    static String normalizeNumber(JsonNode n) {
+        if (n.isIntegralNumber()) return n.bigIntegerValue().toString();
+        BigDecimal value;
+        if (n.isBigDecimal()) {
+            value = n.decimalValue();
+        } else {
+            double d = n.doubleValue();
+            if (!Double.isFinite(d)) return Double.toString(d);
+            value = BigDecimal.valueOf(d);
+        }
+        value = value.stripTrailingZeros();
+        return value.signum() == 0 ? "0" : value.toPlainString();
+    }
+}
@@ -1,16 +1,24 @@
 package com.example.kafkamiddleware.service;
 
+import com.example.kafkamiddleware.config.AsyncConfig;
+import com.example.kafkamiddleware.config.CoreHttpClientConfig;
 import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.dto.EventStatus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -18,8 +26,12 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class CoreApiClient {
@@ -32,18 +44,106 @@ public class CoreApiClient {
     @Value("${core.api.resource-path:/api/core/events}")
     private String coreApiPath;
 
+    @Value("${core.api.batch-path:/api/core/events/batch}")
+    private String coreApiBatchPath;
+
     @Value("${app.core.forward.enabled:true}")
     private boolean forwardEnabled;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Micro-batching: agrupa eventos por origen canónico hasta max-size o linger-ms y los envía en un solo POST
+    @Value("${app.core.forward.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${app.core.forward.batch.max-size:100}")
+    private int batchMaxSize = 100;
+
+    @Value("${app.core.forward.batch.linger-ms:20}")
+    private long batchLingerMs = 20;
+
+    private CoreForwardBatcher batcher;
+
+    // Cliente con pool keep-alive y timeouts (CoreHttpClientConfig); el default solo aplica fuera de Spring
+    @Autowired(required = false)
+    @Qualifier(CoreHttpClientConfig.CORE_REST_TEMPLATE)
+    private RestTemplate restTemplate = new RestTemplate();
     private final EventStore eventStore;
 
+    // Executor acotado (AsyncConfig); si no hay (tests unitarios) el reenvío corre en el hilo llamador
+    @Autowired(required = false)
+    @Qualifier(AsyncConfig.CORE_FORWARD_EXECUTOR)
+    private TaskExecutor forwardExecutor;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong rejectedForwards = new AtomicLong();
+
     public CoreApiClient(EventStore eventStore) {
         this.eventStore = eventStore;
     }
 
-    @Async
+    @PostConstruct
+    public void init() {
+        if (batchEnabled) {
+            batcher = new CoreForwardBatcher(batchMaxSize, batchLingerMs, this::submitBatch);
+            log.info("[Middleware] Reenvío a Core por lotes habilitado (maxSize={}, lingerMs={})", batchMaxSize, batchLingerMs);
+        }
+        if (meterRegistry == null) return;
+        FunctionCounter.builder("core.forward.rejected", rejectedForwards, AtomicLong::get)
+                .description("Reenvíos a Core rechazados por cola llena (el evento queda en RECEIVED)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Entregar lo acumulado; si no llega, queda en RECEIVED y lo retoma el outbox
+        if (batcher != null) batcher.shutdown();
+    }
+
     public void forwardAsync(Event event, String canonicalOrigin) {
+        if (batcher != null) {
+            batcher.add(canonicalOrigin, event);
+            return;
+        }
+        if (forwardExecutor == null) {
+            forwardSafely(event, canonicalOrigin);
+            return;
+        }
+        try {
+            forwardExecutor.execute(() -> forwardSafely(event, canonicalOrigin));
+        } catch (RejectedExecutionException ex) {
+            // No se descarta: el evento sigue persistido como RECEIVED (pendiente de reenvío)
+            long total = rejectedForwards.incrementAndGet();
+            log.warn("[Middleware] Cola de reenvío a Core llena; evento id={} queda pendiente (RECEIVED). rechazos={}", event.getId(), total);
+        }
+    }
+
+    private void submitBatch(String canonicalOrigin, List<Event> batch) {
+        if (forwardExecutor == null) {
+            forwardBatchSafely(batch, canonicalOrigin);
+            return;
+        }
+        try {
+            forwardExecutor.execute(() -> forwardBatchSafely(batch, canonicalOrigin));
+        } catch (RejectedExecutionException ex) {
+            long total = rejectedForwards.addAndGet(batch.size());
+            log.warn("[Middleware] Cola de reenvío a Core llena; lote de {} eventos queda pendiente (RECEIVED). rechazos={}", batch.size(), total);
+        }
+    }
+
+    private void forwardBatchSafely(List<Event> batch, String canonicalOrigin) {
+        try {
+            forwardBatch(batch, canonicalOrigin);
+        } catch (Exception ex) {
+            log.error("[Middleware] Error reenviando lote de {} eventos al Core: {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    public long getRejectedForwards() {
+        return rejectedForwards.get();
+    }
+
+    private void forwardSafely(Event event, String canonicalOrigin) {
         try {
             forward(event, canonicalOrigin);
         } catch (Exception ex) {
@@ -51,10 +151,14 @@ public class CoreApiClient {
         }
     }
 
-    public void forward(Event event, String canonicalOrigin) {
+    /**
+     * Reenvía el evento a Core. Devuelve true si Core lo aceptó (queda DELIVERED);
+     * ante un fallo registra el intento en el outbox para que OutboxRelay lo reintente.
+     */
+    public boolean forward(Event event, String canonicalOrigin) {
         if (!forwardEnabled) {
             log.debug("[Middleware] Reenvío a Core deshabilitado (app.core.forward.enabled=false)");
-            return;
+            return false;
         }
         String url = buildUrl();
         Map<String, Object> body = buildBody(event, canonicalOrigin);
@@ -69,12 +173,73 @@ public class CoreApiClient {
             if (status == 200 || status == 202) {
                 log.info("[Middleware] Evento id={} reenviado a Core OK (status={})", event.getId(), status);
                 eventStore.updateStatus(event.getId(), EventStatus.DELIVERED);
+                return true;
             } else {
                 log.warn("[Middleware] Reenvío a Core devolvió status={} para id={}", status, event.getId());
             }
         } catch (Exception ex) {
             log.error("[Middleware] Falló reenvío a Core ({}): {}", url, ex.getMessage());
         }
+        recordFailure(event);
+        return false;
+    }
+
+    /**
+     * Reenvía un lote de eventos del mismo origen en un solo POST (array JSON) a core.api.batch-path.
+     * Si Core lo acepta, todos pasan a DELIVERED con un único UPDATE; si no, cada uno registra el fallo.
+     */
+    public boolean forwardBatch(List<Event> events, String canonicalOrigin) {
+        if (!forwardEnabled) {
+            log.debug("[Middleware] Reenvío a Core deshabilitado (app.core.forward.enabled=false)");
+            return false;
+        }
+        if (events.isEmpty()) return true;
+        String url = buildUrl(coreApiBatchPath);
+        List<Map<String, Object>> body = new ArrayList<>(events.size());
+        List<String> ids = new ArrayList<>(events.size());
+        for (Event e : events) {
+            body.add(buildBody(e, canonicalOrigin));
+            ids.add(e.getId());
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<List<Map<String, Object>>> req = new HttpEntity<>(body, headers);
+
+        try {
+            ResponseEntity<String> resp = restTemplate.exchange(url, HttpMethod.POST, req, String.class);
+            int status = resp.getStatusCode().value();
+            if (status == 200 || status == 202) {
+                log.info("[Middleware] Lote de {} eventos (origen={}) reenviado a Core OK (status={})", events.size(), canonicalOrigin, status);
+                eventStore.updateStatusBulk(ids, EventStatus.DELIVERED);
+                return true;
+            } else {
+                log.warn("[Middleware] Reenvío de lote a Core devolvió status={} ({} eventos)", status, events.size());
+            }
+        } catch (Exception ex) {
+            log.error("[Middleware] Falló reenvío de lote a Core ({}): {}", url, ex.getMessage());
+        }
+        events.forEach(this::recordFailure);
+        return false;
+    }
+
+    private void recordFailure(Event event) {
+        try {
+            EventStatus st = eventStore.recordDeliveryFailure(event.getId());
+            if (st == EventStatus.FAILED) {
+                log.error("[Middleware] Evento id={} marcado FAILED tras agotar reintentos", event.getId());
+            }
+        } catch (Exception ex) {
+            log.error("[Middleware] No se pudo registrar el fallo de entrega del evento id={}: {}", event.getId(), ex.getMessage());
+        }
+    }
+
+    public boolean isForwardEnabled() {
+        return forwardEnabled;
+    }
+
+    public boolean isBatchEnabled() {
+        return batchEnabled;
     }
 
     //Sebas: Este metodo manda los ack(o no) al core para que maneje live,retry y dead
@@ -100,9 +265,42 @@ public class CoreApiClient {
         }
     }
 
+    /**
+     * Reenvía a Core un lote de ACKs (POST /core/ack/batch con un array JSON). Devuelve true si
+     * Core lo aceptó (2xx); AckRelay solo da los ACKs por confirmados en ese caso.
+     */
+    public boolean forwardAcksToCore(List<Map<String, Object>> acks) {
+        if (!forwardEnabled) {
+            log.debug("[Middleware] Reenvío de ACK deshabilitado (app.core.forward.enabled=false)");
+            return false;
+        }
+        if (acks.isEmpty()) return true;
+
+        String base = coreApiBase != null ? coreApiBase.trim() : "";
+        if (base.endsWith("/")) base = base.substring(0, base.length() - 1);
+        String url = base + "/core/ack/batch";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<List<Map<String, Object>>> req = new HttpEntity<>(acks, headers);
+
+        try {
+            ResponseEntity<String> resp = restTemplate.exchange(url, HttpMethod.POST, req, String.class);
+            log.info("[Middleware] Lote de {} ACKs reenviado a Core (status={}, url={})", acks.size(), resp.getStatusCode().value(), url);
+            return resp.getStatusCode().is2xxSuccessful();
+        } catch (Exception ex) {
+            log.error("[Middleware] Error reenviando lote de {} ACKs al Core: {}", acks.size(), ex.getMessage());
+            return false;
+        }
+    }
+
     private String buildUrl() {
+        return buildUrl(coreApiPath);
+    }
+
+    private String buildUrl(String resourcePath) {
         String base = coreApiBase != null ? coreApiBase.trim() : "";
-        String path = coreApiPath != null ? coreApiPath.trim() : "";
+        String path = resourcePath != null ? resourcePath.trim() : "";
         if (base.endsWith("/")) base = base.substring(0, base.length() - 1);
         if (!path.startsWith("/")) path = "/" + path;
         return base + path;
@@ -111,7 +309,8 @@ public class CoreApiClient {
     private Map<String, Object> buildBody(Event event, String canonicalOrigin) {
         Map<String, Object> body = new HashMap<>();
         body.put("type", event.getType());
-        body.put("payload", event.getPayload());
+        // El árbol del request o el JSON guardado se serializan tal cual, sin materializar el Map
+        body.put("payload", event.payloadForJson());
         String ts = formatTimestamp(event.getTimestamp());
         if (ts != null) body.put("timestamp", ts);
         body.put("originModule", canonicalOrigin);
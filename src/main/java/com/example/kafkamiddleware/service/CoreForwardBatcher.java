@@ -0,0 +1,84 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Acumula eventos por origen canónico y los entrega juntos al alcanzar maxBatchSize
+ * o al pasar lingerMs desde el primero del lote. El sink recibe (origen, lote) y debe
+ * ser rápido (CoreApiClient solo lo encola en el executor de reenvío).
+ */
+class CoreForwardBatcher {
+
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final BiConsumer<String, List<Event>> sink;
+    private final ScheduledExecutorService timer;
+
+    // Guardados por this
+    private final Map<String, List<Event>> pending = new HashMap<>();
+    private final Map<String, ScheduledFuture<?>> lingerTimers = new HashMap<>();
+
+    CoreForwardBatcher(int maxBatchSize, long lingerMs, BiConsumer<String, List<Event>> sink) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerMs = Math.max(0, lingerMs);
+        this.sink = sink;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "core-fwd-linger");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void add(String origin, Event event) {
+        List<Event> ready = null;
+        synchronized (this) {
+            List<Event> buffer = pending.computeIfAbsent(origin, k -> new ArrayList<>());
+            buffer.add(event);
+            if (buffer.size() >= maxBatchSize) {
+                ready = take(origin);
+            } else if (buffer.size() == 1) {
+                lingerTimers.put(origin, timer.schedule(() -> flush(origin), lingerMs, TimeUnit.MILLISECONDS));
+            }
+        }
+        if (ready != null) sink.accept(origin, ready);
+    }
+
+    void flush(String origin) {
+        List<Event> ready;
+        synchronized (this) {
+            ready = take(origin);
+        }
+        if (ready != null) sink.accept(origin, ready);
+    }
+
+    /** Entrega lo pendiente de todos los orígenes y detiene el timer. */
+    void shutdown() {
+        List<String> origins;
+        synchronized (this) {
+            origins = new ArrayList<>(pending.keySet());
+        }
+        origins.forEach(this::flush);
+        timer.shutdownNow();
+    }
+
+    synchronized int pendingCount() {
+        return pending.values().stream().mapToInt(List::size).sum();
+    }
+
+    private List<Event> take(String origin) {
+        ScheduledFuture<?> linger = lingerTimers.remove(origin);
+        if (linger != null) linger.cancel(false);
+        List<Event> buffer = pending.remove(origin);
+        return buffer == null || buffer.isEmpty() ? null : buffer;
+    }
+}
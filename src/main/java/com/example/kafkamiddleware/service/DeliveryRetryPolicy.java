@@ -0,0 +1,49 @@
+package com.example.kafkamiddleware.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Política de reintentos del outbox hacia Core: backoff exponencial con jitter
+ * y estado terminal FAILED al agotar los intentos.
+ */
+@Component
+public class DeliveryRetryPolicy {
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    // Margen para que el relay no compita con el forwardAsync inicial del evento recién recibido
+    @Value("${app.outbox.first-attempt-delay-ms:30000}")
+    private long firstAttemptDelayMs = 30000;
+
+    @Value("${app.outbox.backoff.base-ms:1000}")
+    private long baseDelayMs = 1000;
+
+    @Value("${app.outbox.backoff.max-ms:300000}")
+    private long maxDelayMs = 300000;
+
+    public Instant firstAttemptAt(Instant now) {
+        return now.plusMillis(firstAttemptDelayMs);
+    }
+
+    public boolean isExhausted(int attempts) {
+        return attempts >= maxAttempts;
+    }
+
+    /** Próximo intento tras {@code attempts} fallos: base * 2^(attempts-1), con tope, en [d/2, d]. */
+    public Instant nextAttemptAt(int attempts, Instant now) {
+        int shift = Math.max(0, Math.min(attempts - 1, 30));
+        long delay = Math.min(maxDelayMs, baseDelayMs << shift);
+        long half = delay / 2;
+        long jittered = half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+        return now.plusMillis(jittered);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
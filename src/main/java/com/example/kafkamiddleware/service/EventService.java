@@ -1,28 +1,44 @@
 package com.example.kafkamiddleware.service;
 
+import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.dto.EventDto;
+import com.example.kafkamiddleware.dto.EventStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class EventService {
 
+    private static final Logger log = LoggerFactory.getLogger(EventService.class);
+
+    // Header con el id del evento en el middleware (Core puede usarlo para deduplicar)
+    public static final String EVENT_ID_HEADER = "eventId";
+
     private final ObjectProvider<KafkaTemplate<String, String>> kafkaTemplateProvider;
     private final ObjectMapper objectMapper;
     private final ModuleMessageStore moduleMessageStore;
 
-    // @Value("${spring.kafka.topic.core-events:core-events}")
-    // private String coreTopic;
+    @Autowired(required = false)
+    private EventStore eventStore;
 
-    @Value("${core.api.url:http://localhost:8082/api}")
-    private String coreApiBase;
+    // Sin Kafka: si está habilitado, los mensajes para los módulos van al log durable en vez de la cola en memoria
+    @Autowired(required = false)
+    private ModuleDeliveryLog moduleDeliveryLog;
 
-    @Value("${core.api.resource-path:/core/events}")
-    private String coreApiPath;
+    @Value("${spring.kafka.topic.core-events:core-events}")
+    private String coreTopic = "core-events";
 
     @Value("${app.kafka.enabled:true}")
     private boolean kafkaEnabled;
@@ -34,6 +50,21 @@ public class EventService {
     }
 
     public void sendToCore(EventDto event) throws EventSendException {
+        send(null, event).whenComplete((result, ex) -> {
+            if (ex != null) log.error("[Middleware] Falló publicación en Kafka (topic={}): {}", coreTopic, ex.getMessage());
+        });
+    }
+
+    /**
+     * Publica el evento en el tópico de Core sin bloquear. Cuando el broker confirma (o el productor
+     * agota sus reintentos internos, delivery.timeout.ms) el callback deja el evento DELIVERED o FAILED.
+     */
+    public CompletableFuture<SendResult<String, String>> sendToCore(Event event, String canonicalOrigin) throws EventSendException {
+        EventDto dto = new EventDto(event.getType(), event.getPayload(), event.getTimestamp(), canonicalOrigin);
+        return send(event.getId(), dto).whenComplete((result, ex) -> onSendComplete(event.getId(), ex));
+    }
+
+    private CompletableFuture<SendResult<String, String>> send(String eventId, EventDto event) throws EventSendException {
         try {
             if (kafkaEnabled) {
                 KafkaTemplate<String, String> kafkaTemplate = kafkaTemplateProvider.getIfAvailable();
@@ -43,12 +74,21 @@ public class EventService {
                 }
                 String payload = objectMapper.writeValueAsString(event);
                 // Use originModule as key so Core can route or partition if needed
-                String coreEndpoint = coreApiBase+coreApiPath;
-                System.out.println(coreEndpoint);
-                kafkaTemplate.send(coreEndpoint, event.getOriginModule(), payload);
+                ProducerRecord<String, String> record = new ProducerRecord<>(coreTopic, event.getOriginModule(), payload);
+                if (eventId != null) record.headers().add(EVENT_ID_HEADER, eventId.getBytes(StandardCharsets.UTF_8));
+                log.debug("[Middleware] Publicando evento en Kafka topic={} key={}", coreTopic, event.getOriginModule());
+                return kafkaTemplate.send(record);
             } else {
                 // For local testing without Kafka: simulate Core by directly storing the event for the originModule
-                moduleMessageStore.addMessageForModule(event.getOriginModule(), event);
+                if (moduleDeliveryLog != null && moduleDeliveryLog.isEnabled()) {
+                    // log durable: el envío se confirma cuando el mensaje quedó escrito
+                    return moduleDeliveryLog.append(event.getOriginModule(), eventId, event).thenApply(offset -> null);
+                }
+                if (!moduleMessageStore.addMessageForModule(event.getOriginModule(), event)) {
+                    // cola del módulo llena con política REJECT: el envío cuenta como fallido
+                    return CompletableFuture.failedFuture(new EventSendException("Module queue full for " + event.getOriginModule(), null));
+                }
+                return CompletableFuture.completedFuture(null);
             }
         } catch (JsonProcessingException e) {
             throw new EventSendException("Failed to serialize event", e);
@@ -57,6 +97,21 @@ public class EventService {
         }
     }
 
+    private void onSendComplete(String eventId, Throwable ex) {
+        if (eventStore == null) return;
+        try {
+            if (ex == null) {
+                eventStore.updateStatus(eventId, EventStatus.DELIVERED);
+            } else {
+                // El productor idempotente ya reintentó hasta delivery.timeout.ms: fallo definitivo
+                log.error("[Middleware] Evento id={} no pudo publicarse en Kafka: {}", eventId, ex.getMessage());
+                eventStore.updateStatus(eventId, EventStatus.FAILED);
+            }
+        } catch (Exception e) {
+            log.error("[Middleware] No se pudo actualizar el estado del evento id={}: {}", eventId, e.getMessage());
+        }
+    }
+
     public static class EventSendException extends Exception {
         public EventSendException(String message, Throwable cause) {
             super(message, cause);
@@ -0,0 +1,326 @@
+package com.example.kafkamiddleware.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Firma de contenido para el dedupe de EventStore: hash de "type|payload|tsMillis|origin", con el
+ * payload como JSON tal cual llegó o en forma canónica (CanonicalJson).
+ * Los campos se codifican a UTF-8 directo en un buffer del hilo y de ahí al hash, sin armar el
+ * String concatenado ni su byte[]; el hasher (y su MessageDigest) se reutiliza por hilo.
+ *
+ * SHA256 produce exactamente la misma firma que la implementación anterior (String + getBytes),
+ * así que es compatible con las filas ya guardadas. MURMUR3_128 es bastante más rápido pero no
+ * criptográfico y da otra firma: cambiar de algoritmo deja de detectar duplicados contra lo ya
+ * guardado con el anterior.
+ */
+final class EventSignature {
+
+    enum Algorithm {
+        SHA256,
+        MURMUR3_128
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Hasher> SHA256 = ThreadLocal.withInitial(Sha256Hasher::new);
+    private static final ThreadLocal<Hasher> MURMUR3 = ThreadLocal.withInitial(Murmur3Hasher::new);
+
+    private EventSignature() {
+    }
+
+    static String of(Algorithm algorithm, String type, String payloadJson, long tsMillis, String origin) {
+        Hasher h = hasher(algorithm);
+        h.putString(type);
+        h.putByte('|');
+        h.putString(payloadJson);
+        h.putByte('|');
+        h.putLong(tsMillis);
+        h.putByte('|');
+        h.putString(origin);
+        return h.finishHex();
+    }
+
+    /**
+     * Igual que el anterior, pero el payload se escribe en forma canónica (CanonicalJson) directo
+     * al hasher a través de un JsonGenerator, sin pasar por un String intermedio.
+     */
+    static String of(Algorithm algorithm, JsonFactory jsonFactory, String type, JsonNode payload, long tsMillis, String origin) {
+        Hasher h = hasher(algorithm);
+        h.putString(type);
+        h.putByte('|');
+        try (JsonGenerator gen = jsonFactory.createGenerator(h)) {
+            CanonicalJson.write(payload, gen);
+        } catch (IOException ex) {
+            // el hasher no hace I/O: solo un bug del generador llega acá
+            throw new UncheckedIOException(ex);
+        }
+        h.putByte('|');
+        h.putLong(tsMillis);
+        h.putByte('|');
+        h.putString(origin);
+        return h.finishHex();
+    }
+
+    /** Hasher del hilo ya reseteado; se escribe en él y se cierra con finishHex(). */
+    static Hasher hasher(Algorithm algorithm) {
+        Hasher h = (algorithm == Algorithm.MURMUR3_128 ? MURMUR3 : SHA256).get();
+        h.reset();
+        return h;
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            out[2 * i] = HEX[v >>> 4];
+            out[2 * i + 1] = HEX[v & 0x0f];
+        }
+        return new String(out);
+    }
+
+    /**
+     * Destino de los bytes a firmar. Como OutputStream se le puede escribir con un JsonGenerator;
+     * putString codifica UTF-8 en un buffer propio (igual que String.getBytes: un surrogate suelto
+     * se escribe como '?') y solo pasa al hash bloques completos.
+     */
+    abstract static class Hasher extends OutputStream {
+        private final byte[] buf = new byte[4096];
+        private int pos;
+
+        /** Recibe bytes ya codificados (flush del buffer o escritura directa). */
+        protected abstract void update(byte[] b, int off, int len);
+
+        protected abstract byte[] digest();
+
+        protected abstract void resetState();
+
+        final void reset() {
+            pos = 0;
+            resetState();
+        }
+
+        final String finishHex() {
+            flushBuffer();
+            return toHex(digest());
+        }
+
+        final void putByte(int b) {
+            if (pos == buf.length) flushBuffer();
+            buf[pos++] = (byte) b;
+        }
+
+        /** Mismos bytes que String.valueOf(s).getBytes(UTF_8) (null se escribe "null", como en la concatenación). */
+        final void putString(String s) {
+            if (s == null) s = "null";
+            int n = s.length();
+            for (int i = 0; i < n; i++) {
+                if (buf.length - pos < 4) flushBuffer();
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xc0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    buf[pos++] = '?';
+                } else {
+                    buf[pos++] = (byte) (0xe0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+        }
+
+        /** Dígitos decimales de v (Long.toString) sin crear el String. */
+        final void putLong(long v) {
+            if (buf.length - pos < 20) flushBuffer();
+            if (v == Long.MIN_VALUE) {
+                putString(Long.toString(v));
+                return;
+            }
+            if (v < 0) {
+                buf[pos++] = '-';
+                v = -v;
+            }
+            int start = pos;
+            do {
+                buf[pos++] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v != 0);
+            for (int i = start, j = pos - 1; i < j; i++, j--) {
+                byte t = buf[i];
+                buf[i] = buf[j];
+                buf[j] = t;
+            }
+        }
+
+        @Override
+        public final void write(int b) {
+            putByte(b);
+        }
+
+        @Override
+        public final void write(byte[] b, int off, int len) {
+            if (len >= buf.length) {
+                flushBuffer();
+                update(b, off, len);
+                return;
+            }
+            if (buf.length - pos < len) flushBuffer();
+            System.arraycopy(b, off, buf, pos, len);
+            pos += len;
+        }
+
+        private void flushBuffer() {
+            if (pos > 0) {
+                update(buf, 0, pos);
+                pos = 0;
+            }
+        }
+    }
+
+    static final class Sha256Hasher extends Hasher {
+        private final MessageDigest md;
+
+        Sha256Hasher() {
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        @Override
+        protected void update(byte[] b, int off, int len) {
+            md.update(b, off, len);
+        }
+
+        @Override
+        protected byte[] digest() {
+            return md.digest();
+        }
+
+        @Override
+        protected void resetState() {
+            md.reset();
+        }
+    }
+
+    /** MurmurHash3 x64 128 bits (seed 0) incremental; salida h1|h2 en little-endian, como Guava. */
+    static final class Murmur3Hasher extends Hasher {
+        private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final byte[] tail = new byte[16];
+        private int tailLen;
+        private long h1;
+        private long h2;
+        private long length;
+
+        @Override
+        protected void update(byte[] b, int off, int len) {
+            length += len;
+            if (tailLen > 0) {
+                int take = Math.min(16 - tailLen, len);
+                System.arraycopy(b, off, tail, tailLen, take);
+                tailLen += take;
+                off += take;
+                len -= take;
+                if (tailLen < 16) return;
+                block((long) LONG_LE.get(tail, 0), (long) LONG_LE.get(tail, 8));
+                tailLen = 0;
+            }
+            int end = off + (len & ~15);
+            for (; off < end; off += 16) {
+                block((long) LONG_LE.get(b, off), (long) LONG_LE.get(b, off + 8));
+            }
+            tailLen = len & 15;
+            System.arraycopy(b, off, tail, 0, tailLen);
+        }
+
+        private void block(long k1, long k2) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        @Override
+        protected byte[] digest() {
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = tailLen - 1; i >= 8; i--) k2 = (k2 << 8) | (tail[i] & 0xffL);
+            for (int i = Math.min(tailLen, 8) - 1; i >= 0; i--) k1 = (k1 << 8) | (tail[i] & 0xffL);
+            if (tailLen > 8) {
+                k2 *= C2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= C1;
+                h2 ^= k2;
+            }
+            if (tailLen > 0) {
+                k1 *= C1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= C2;
+                h1 ^= k1;
+            }
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            byte[] out = new byte[16];
+            LONG_LE.set(out, 0, h1);
+            LONG_LE.set(out, 8, h2);
+            return out;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        @Override
+        protected void resetState() {
+            h1 = 0;
+            h2 = 0;
+            length = 0;
+            tailLen = 0;
+        }
+    }
+}
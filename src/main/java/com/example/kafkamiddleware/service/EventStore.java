@@ -5,20 +5,39 @@ import com.example.kafkamiddleware.dto.EventStatus;
 import com.example.kafkamiddleware.persistence.EventEntity;
 import com.example.kafkamiddleware.persistence.EventRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -33,57 +52,299 @@ public class EventStore {
     @Value("${app.storage.type:MEMORY}")
     private String storageType;
 
+    // DATABASE: insertar directamente y resolver duplicados por el unique de la firma (sin SELECT previo ni flush forzado)
+    @Value("${app.storage.insert-first:false}")
+    private boolean insertFirst;
+
+    // Hash de la firma de dedupe (SHA256 | MURMUR3_128); cambiarlo deja de deduplicar contra lo ya guardado
+    @Value("${app.storage.signature.algorithm:SHA256}")
+    private EventSignature.Algorithm signatureAlgorithm = EventSignature.Algorithm.SHA256;
+
+    // Opt-in: firma sobre el payload canónico (claves ordenadas, números normalizados), el mismo contenido con
+    // otro orden de campos es duplicado. Cambia todas las firmas: lo guardado antes no se reconoce como duplicado
+    @Value("${app.storage.signature.canonical-json:false}")
+    private boolean canonicalSignature = false;
+
+    // DATABASE: firmas guardadas hace poco (reintentos del mismo módulo) se resuelven sin consultar la BD
+    @Value("${app.storage.dedupe.cache.enabled:true}")
+    private boolean dedupeCacheEnabled = true;
+
+    @Value("${app.storage.dedupe.cache.max-size:100000}")
+    private int dedupeCacheMaxSize = 100000;
+
+    @Value("${app.storage.dedupe.cache.ttl-ms:60000}")
+    private long dedupeCacheTtlMs = 60000;
+
+    // DATABASE: filtro de Bloom de firmas persistidas; si dice "no está" se inserta sin findBySignature
+    @Value("${app.storage.dedupe.bloom.enabled:true}")
+    private boolean bloomEnabled = true;
+
+    @Value("${app.storage.dedupe.bloom.expected-insertions:1000000}")
+    private long bloomExpectedInsertions = 1000000;
+
+    @Value("${app.storage.dedupe.bloom.fpp:0.01}")
+    private double bloomFpp = 0.01;
+
     @Autowired(required = false)
     private EventRepository repository;
 
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
-    private ObjectMapper objectMapper;
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired(required = false)
+    private DeliveryRetryPolicy retryPolicy = new DeliveryRetryPolicy();
 
     private final Map<String, Event> store = new ConcurrentHashMap<>();
+    // Índice secundario firma -> evento (MEMORY): dedupe O(1) e inserción atómica
+    private final Map<String, Event> bySignature = new ConcurrentHashMap<>();
+
+    // Solo en DATABASE y después de onInit (null = deshabilitados, p. ej. EventStore armado a mano en tests)
+    private RecentSignatureCache recentSignatures;
+    private SignatureBloomFilter persistedSignatures;
+    // Hasta terminar la carga inicial de la tabla el filtro no puede afirmar que una firma es nueva
+    private volatile boolean bloomReady;
+    private final AtomicLong dedupeCacheHits = new AtomicLong();
+    private final AtomicLong bloomSkippedLookups = new AtomicLong();
 
     @PostConstruct
     public void onInit() {
         log.info("[Middleware] EventStore inicializado. storageType={} | repoDisponible={}", storageType, repository != null);
+        if (!isDb()) return;
+        if (dedupeCacheEnabled) {
+            recentSignatures = new RecentSignatureCache(dedupeCacheMaxSize, dedupeCacheTtlMs);
+        }
+        if (bloomEnabled) {
+            persistedSignatures = new SignatureBloomFilter(bloomExpectedInsertions, bloomFpp);
+            Thread warmUp = new Thread(this::warmUpSignatureFilter, "dedupe-bloom-warmup");
+            warmUp.setDaemon(true);
+            warmUp.start();
+        }
+        if (meterRegistry != null) {
+            FunctionCounter.builder("events.dedupe.cache.hits", dedupeCacheHits, AtomicLong::get)
+                    .description("Duplicados resueltos por la ventana de firmas recientes, sin consultar la BD")
+                    .register(meterRegistry);
+            FunctionCounter.builder("events.dedupe.bloom.skipped", bloomSkippedLookups, AtomicLong::get)
+                    .description("Búsquedas de firma evitadas porque el filtro de Bloom la descarta")
+                    .register(meterRegistry);
+        }
     }
 
-    @Transactional
+    /**
+     * Carga en el filtro de Bloom las firmas ya guardadas, en páginas keyset por id. Lo que se inserte
+     * mientras tanto se agrega en save/saveAll; recién al terminar el filtro empieza a evitar consultas.
+     */
+    void warmUpSignatureFilter() {
+        long loaded = 0;
+        String afterId = null;
+        try {
+            while (true) {
+                List<Object[]> page = repository.findSignaturesAfter(afterId, PageRequest.of(0, 10000));
+                for (Object[] row : page) {
+                    persistedSignatures.put((String) row[1]);
+                    afterId = (String) row[0];
+                }
+                loaded += page.size();
+                if (page.size() < 10000) break;
+            }
+            bloomReady = true;
+            log.info("[Middleware] Filtro de Bloom de firmas cargado: {} firmas ({} bits, {} hashes)",
+                    loaded, persistedSignatures.bitSize(), persistedSignatures.hashCount());
+        } catch (RuntimeException ex) {
+            // Sin carga completa el filtro no se usa: toda firma se sigue buscando en la BD
+            log.warn("[Middleware] No se pudo cargar el filtro de Bloom de firmas: {}", ex.getMessage());
+        }
+    }
+
+    boolean isSignatureFilterReady() {
+        return bloomReady;
+    }
+
+    // SUPPORTS: en modo insert-first cada INSERT corre en su propia transacción (la del repositorio),
+    // así la violación de uk_events_signature aparece en el commit y se puede capturar aquí. El camino
+    // lookup-first abre su propia transacción REQUIRED (inTransaction).
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Event save(Event e) {
         if (isDb()) {
             log.debug("[Middleware] Guardando evento en H2/JPA (DATABASE)");
-            String payloadJson = toJson(e.getPayload());
-            String signature = signatureOf(e.getType(), payloadJson, e.getTimestamp().toEpochMilli(), e.getOriginModule());
+            String payloadJson = payloadJsonOf(e);
+            String signature = signatureOf(e, payloadJson, e.getTimestamp().toEpochMilli());
 
-            Optional<EventEntity> existing = repository.findBySignature(signature);
-            if (existing.isPresent()) {
-                return toDto(existing.get());
+            Event recent = recentlySaved(signature);
+            if (recent != null) {
+                return recent;
             }
 
-            EventEntity entity = new EventEntity();
-            entity.setId(e.getId());
-            entity.setType(e.getType());
-            entity.setPayloadJson(payloadJson);
-            entity.setTimestamp(e.getTimestamp());
-            entity.setOriginModule(e.getOriginModule());
-            entity.setStatus(e.getStatus().name());
-            entity.setSignature(signature);
+            // Firma descartada por el filtro de Bloom: no hay nada que buscar, el unique cubre las carreras
+            boolean definitelyNew = isDefinitelyNew(signature);
+            if (insertFirst || definitelyNew) {
+                if (definitelyNew) bloomSkippedLookups.incrementAndGet();
+                Event stored = insertFirst(e, payloadJson, signature);
+                remember(signature, stored);
+                return stored;
+            }
 
-            EventEntity saved = repository.save(entity);
-            // asegurar flush para que sea visible inmediatamente desde otras conexiones
-            repository.flush();
-            return toDto(saved);
+            // Lookup-first: SELECT + INSERT + flush en una sola transacción (REQUIRED), como antes de insert-first
+            return inTransaction(() -> lookupThenInsert(e, payloadJson, signature));
         }
 
         log.debug("[Middleware] Guardando evento en memoria (MEMORY)");
-        // In-memory fallback (dedupe por equals)
-        for (Event existing : store.values()) {
-            if (existing.equals(e)) {
-                return existing;
-            }
+        // In-memory fallback (dedupe por firma de contenido, misma que en DATABASE)
+        long tsMillis = e.getTimestamp() != null ? e.getTimestamp().toEpochMilli() : 0L;
+        String signature = signatureOf(e, payloadJsonOf(e), tsMillis);
+        // putIfAbsent es atómico: dos POST idénticos concurrentes no pueden guardarse ambos
+        Event existing = bySignature.putIfAbsent(signature, e);
+        if (existing != null) {
+            return existing;
         }
+        if (e.getNextAttemptAt() == null) e.setNextAttemptAt(retryPolicy.firstAttemptAt(Instant.now()));
         store.put(e.getId(), e);
         return e;
     }
 
+    private Event lookupThenInsert(Event e, String payloadJson, String signature) {
+        Optional<EventEntity> existing = repository.findBySignature(signature);
+        if (existing.isPresent()) {
+            Event stored = toDto(existing.get());
+            remember(signature, stored);
+            return stored;
+        }
+
+        EventEntity saved = repository.save(toEntity(e, payloadJson, signature));
+        // asegurar flush para que sea visible inmediatamente desde otras conexiones
+        repository.flush();
+        Event stored = toDto(saved);
+        remember(signature, stored);
+        return stored;
+    }
+
+    // La auto-invocación no pasa por el proxy de @Transactional: la transacción se abre a mano. Sin
+    // transactionManager (EventStore armado a mano en tests) se corre tal cual, en la transacción del caller
+    private <T> T inTransaction(Supplier<T> work) {
+        if (transactionManager == null) return work.get();
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    /**
+     * Inserta sin consultar antes la firma: el constraint uk_events_signature detecta el duplicado
+     * (igual que AckService.ack) y el flush ocurre en el commit. Un solo round-trip en el caso normal.
+     */
+    private Event insertFirst(Event e, String payloadJson, String signature) {
+        try {
+            repository.save(toEntity(e, payloadJson, signature));
+            return e;
+        } catch (DataIntegrityViolationException dup) {
+            // Otro request guardó el mismo contenido primero: devolver el existente
+            return repository.findBySignature(signature).map(this::toDto).orElseThrow(() -> dup);
+        }
+    }
+
+    /**
+     * Guarda un lote de eventos. Devuelve, en el mismo orden, el evento persistido
+     * para cada entrada: el propio evento si era nuevo o el existente si era duplicado
+     * (el caller lo detecta comparando ids). En DATABASE usa una sola consulta de firmas,
+     * un saveAll (JDBC batching) y un único flush dentro de una transacción propia del INSERT: si otro
+     * request guardó la misma firma en paralelo, el lote se revierte y se reintenta item por item.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Event> saveAll(List<Event> events) {
+        List<Event> out = new ArrayList<>(events.size());
+        if (!isDb()) {
+            for (Event e : events) out.add(save(e));
+            return out;
+        }
+        log.debug("[Middleware] Guardando lote de {} eventos en H2/JPA (DATABASE)", events.size());
+
+        List<String> payloads = new ArrayList<>(events.size());
+        List<String> signatures = new ArrayList<>(events.size());
+        for (Event e : events) {
+            String payloadJson = payloadJsonOf(e);
+            payloads.add(payloadJson);
+            signatures.add(signatureOf(e, payloadJson, e.getTimestamp().toEpochMilli()));
+        }
+
+        // Solo se consultan las firmas que no están en la ventana reciente y que el filtro de Bloom no descarta
+        Map<String, Event> known = new HashMap<>();
+        Set<String> lookup = new HashSet<>();
+        for (String signature : signatures) {
+            Event recent = recentlySaved(signature);
+            if (recent != null) {
+                known.put(signature, recent);
+            } else if (isDefinitelyNew(signature)) {
+                bloomSkippedLookups.incrementAndGet();
+            } else {
+                lookup.add(signature);
+            }
+        }
+        if (!lookup.isEmpty()) {
+            for (EventEntity ent : repository.findBySignatureIn(lookup)) {
+                Event stored = toDto(ent);
+                known.put(ent.getSignature(), stored);
+                remember(ent.getSignature(), stored);
+            }
+        }
+
+        List<EventEntity> toInsert = new ArrayList<>();
+        List<Integer> insertedAt = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            Event e = events.get(i);
+            String signature = signatures.get(i);
+            Event existing = known.get(signature);
+            if (existing != null) {
+                // duplicado contra la BD o contra un item anterior del mismo lote
+                out.add(existing);
+                continue;
+            }
+            toInsert.add(toEntity(e, payloads.get(i), signature));
+            insertedAt.add(i);
+            known.put(signature, e);
+            out.add(e);
+        }
+
+        if (toInsert.isEmpty()) return out;
+        if (insertBatch(toInsert)) {
+            for (EventEntity ent : toInsert) remember(ent.getSignature(), known.get(ent.getSignature()));
+            return out;
+        }
+
+        // Alguna firma "nueva" la guardó otro request en paralelo (p. ej. falso "no está" por carrera con el
+        // filtro de Bloom): el lote se revirtió entero, cada item se resuelve como en save insert-first
+        log.debug("[Middleware] Firma duplicada concurrente en lote de {} eventos; reintento item por item", toInsert.size());
+        for (int k = 0; k < toInsert.size(); k++) {
+            int i = insertedAt.get(k);
+            String signature = signatures.get(i);
+            Event stored = insertFirst(events.get(i), payloads.get(i), signature);
+            remember(signature, stored);
+            out.set(i, stored);
+        }
+        return out;
+    }
+
+    /**
+     * INSERT del lote en su propia transacción (o la del caller si ya hay una). Devuelve false si violó
+     * uk_events_signature y se revirtió; dentro de una transacción del caller no hay reintento posible
+     * (quedó marcada para rollback) y la excepción se propaga.
+     */
+    private boolean insertBatch(List<EventEntity> rows) {
+        boolean callerTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        try {
+            inTransaction(() -> {
+                repository.saveAll(rows);
+                repository.flush();
+                return null;
+            });
+            return true;
+        } catch (DataIntegrityViolationException dup) {
+            if (callerTransaction) throw dup;
+            return false;
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<Event> listAll() {
         if (isDb()) {
@@ -100,6 +361,74 @@ public class EventStore {
         return store.values().stream().filter(ev -> ev.getStatus() == status).collect(Collectors.toList());
     }
 
+    /**
+     * Página de eventos ordenada por (timestamp, id), a partir del cursor opaco devuelto por la página anterior
+     * (null para la primera). Los filtros null no se aplican. En DATABASE solo trae limit+1 filas (Slice),
+     * apoyada en los índices *_ts_id de EventEntity; nunca carga la tabla completa.
+     */
+    @Transactional(readOnly = true)
+    public EventPage listPage(EventStatus status, String type, String originModule, String cursor, int limit) {
+        Cursor after = Cursor.decode(cursor);
+        if (isDb()) {
+            Slice<EventEntity> slice = repository.findPage(status != null ? status.name() : null, type, originModule,
+                    after != null ? after.timestamp() : null, after != null ? after.id() : null,
+                    PageRequest.of(0, limit));
+            List<Event> events = slice.getContent().stream().map(this::toDto).collect(Collectors.toList());
+            return EventPage.of(events, slice.hasNext());
+        }
+        List<Event> matching = store.values().stream()
+                .filter(ev -> status == null || ev.getStatus() == status)
+                .filter(ev -> type == null || type.equals(ev.getType()))
+                .filter(ev -> originModule == null || originModule.equals(ev.getOriginModule()))
+                .filter(ev -> after == null || after.isBefore(ev))
+                .sorted(KEYSET_ORDER)
+                .limit(limit + 1L)
+                .collect(Collectors.toList());
+        boolean hasNext = matching.size() > limit;
+        return EventPage.of(hasNext ? matching.subList(0, limit) : matching, hasNext);
+    }
+
+    private static final Comparator<Event> KEYSET_ORDER = Comparator
+            .comparing(Event::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Event::getId);
+
+    public record EventPage(List<Event> events, String nextCursor) {
+        static EventPage of(List<Event> events, boolean hasNext) {
+            String next = hasNext && !events.isEmpty() ? Cursor.of(events.get(events.size() - 1)).encode() : null;
+            return new EventPage(events, next);
+        }
+    }
+
+    /** Posición (timestamp, id) del último evento entregado, serializada en base64url para el cliente. */
+    record Cursor(Instant timestamp, String id) {
+        static Cursor of(Event e) {
+            return new Cursor(e.getTimestamp(), e.getId());
+        }
+
+        String encode() {
+            String raw = timestamp + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) return null;
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                if (sep <= 0 || sep == raw.length() - 1) throw new IllegalArgumentException("invalid cursor");
+                return new Cursor(Instant.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("invalid cursor", ex);
+            }
+        }
+
+        boolean isBefore(Event e) {
+            if (e.getTimestamp() == null) return false;
+            int cmp = e.getTimestamp().compareTo(timestamp);
+            return cmp > 0 || (cmp == 0 && e.getId().compareTo(id) > 0);
+        }
+    }
+
     @Transactional(readOnly = true)
     public Event findById(String id) {
         if (isDb()) {
@@ -123,6 +452,106 @@ public class EventStore {
         }
     }
 
+    /**
+     * Actualiza el estado de varios eventos con un único UPDATE (reenvío por lotes a Core).
+     */
+    @Transactional
+    public void updateStatusBulk(Collection<String> ids, EventStatus status) {
+        if (ids.isEmpty()) return;
+        if (isDb()) {
+            repository.updateStatusByIdIn(ids, status.name());
+            return;
+        }
+        for (String id : ids) {
+            Event e = store.get(id);
+            if (e != null) e.setStatus(status);
+        }
+    }
+
+    /**
+     * Outbox: eventos RECEIVED cuyo próximo intento de entrega ya venció, los más antiguos primero.
+     */
+    @Transactional(readOnly = true)
+    public List<Event> findDueForDelivery(Instant now, int limit) {
+        if (isDb()) {
+            return repository.findDueForDelivery(EventStatus.RECEIVED.name(), now, PageRequest.of(0, limit))
+                    .stream().map(this::toDto).collect(Collectors.toList());
+        }
+        return store.values().stream()
+                .filter(ev -> ev.getStatus() == EventStatus.RECEIVED)
+                .filter(ev -> ev.getNextAttemptAt() == null || !ev.getNextAttemptAt().isAfter(now))
+                .sorted(Comparator.comparing(Event::getNextAttemptAt, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Registra un intento de entrega fallido: agenda el siguiente con backoff o pasa a FAILED
+     * al agotar los intentos. Devuelve el estado resultante (null si el evento no existe).
+     */
+    @Transactional
+    public EventStatus recordDeliveryFailure(String id) {
+        Instant now = Instant.now();
+        if (isDb()) {
+            return repository.findById(id).map(ent -> {
+                int attempts = ent.getDeliveryAttempts() + 1;
+                ent.setDeliveryAttempts(attempts);
+                if (retryPolicy.isExhausted(attempts)) {
+                    ent.setStatus(EventStatus.FAILED.name());
+                    ent.setNextAttemptAt(null);
+                } else {
+                    ent.setNextAttemptAt(retryPolicy.nextAttemptAt(attempts, now));
+                }
+                repository.save(ent);
+                return EventStatus.valueOf(ent.getStatus());
+            }).orElse(null);
+        }
+        Event e = store.get(id);
+        if (e == null) return null;
+        synchronized (e) {
+            int attempts = e.getDeliveryAttempts() + 1;
+            e.setDeliveryAttempts(attempts);
+            if (retryPolicy.isExhausted(attempts)) {
+                e.setStatus(EventStatus.FAILED);
+                e.setNextAttemptAt(null);
+            } else {
+                e.setNextAttemptAt(retryPolicy.nextAttemptAt(attempts, now));
+            }
+            return e.getStatus();
+        }
+    }
+
+    private Event recentlySaved(String signature) {
+        if (recentSignatures == null) return null;
+        Event hit = recentSignatures.get(signature);
+        if (hit != null) dedupeCacheHits.incrementAndGet();
+        return hit;
+    }
+
+    private boolean isDefinitelyNew(String signature) {
+        return persistedSignatures != null && bloomReady && !persistedSignatures.mightContain(signature);
+    }
+
+    /**
+     * Registra una firma ya persistida. El filtro de Bloom se actualiza enseguida (si la transacción
+     * se revierte solo queda un falso positivo); la ventana reciente recién después del commit, para
+     * no devolver nunca un evento que no llegó a guardarse.
+     */
+    private void remember(String signature, Event stored) {
+        if (persistedSignatures != null) persistedSignatures.put(signature);
+        if (recentSignatures == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentSignatures.put(signature, stored);
+                }
+            });
+        } else {
+            recentSignatures.put(signature, stored);
+        }
+    }
+
     private boolean isDb() {
         // Si se fuerza explícitamente MEMORY, usar memoria
         if ("MEMORY".equalsIgnoreCase(storageType)) return false;
@@ -130,41 +559,75 @@ public class EventStore {
         return repository != null;
     }
 
+    // Única serialización del payload por evento: desde el árbol del request si vino así, o desde el Map
+    private String payloadJsonOf(Event e) {
+        if (e.getPayloadJson() != null) return e.getPayloadJson();
+        JsonNode node = e.getPayloadNode();
+        if (node != null) {
+            try {
+                return objectMapper.writeValueAsString(node);
+            } catch (JsonProcessingException ex) {
+                return node.toString();
+            }
+        }
+        return toJson(e.getPayload());
+    }
+
     private String toJson(Map<String, Object> map) {
         try {
             return objectMapper.writeValueAsString(map);
         } catch (JsonProcessingException ex) {
-            // fallback mínimo
-            return String.valueOf(map);
+            // fallback mínimo, pero siempre JSON válido: el texto se guarda bajo "raw"
+            return "{\"raw\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(String.valueOf(map))) + "\"}";
         }
     }
 
+    private EventEntity toEntity(Event e, String payloadJson, String signature) {
+        EventEntity entity = new EventEntity();
+        entity.setId(e.getId());
+        entity.setType(e.getType());
+        entity.setPayloadJson(payloadJson);
+        entity.setTimestamp(e.getTimestamp());
+        entity.setOriginModule(e.getOriginModule());
+        entity.setStatus(e.getStatus().name());
+        entity.setSignature(signature);
+        entity.setDeliveryAttempts(e.getDeliveryAttempts());
+        entity.setNextAttemptAt(e.getNextAttemptAt() != null ? e.getNextAttemptAt() : retryPolicy.firstAttemptAt(Instant.now()));
+        return entity;
+    }
+
     private Event toDto(EventEntity ent) {
         Event dto = new Event();
         dto.setId(ent.getId());
         dto.setType(ent.getType());
-        try {
-            Map<String, Object> payload = objectMapper.readValue(ent.getPayloadJson(), Map.class);
-            dto.setPayload(payload);
-        } catch (Exception ex) {
-            dto.setPayload(Map.of("raw", ent.getPayloadJson()));
-        }
+        // Sin parsear: el JSON guardado se escribe crudo en la respuesta y el Map se arma solo si se pide
+        dto.setPayloadJson(ent.getPayloadJson());
         dto.setTimestamp(ent.getTimestamp());
         dto.setOriginModule(ent.getOriginModule());
         dto.setStatus(EventStatus.valueOf(ent.getStatus()));
+        dto.setDeliveryAttempts(ent.getDeliveryAttempts());
+        dto.setNextAttemptAt(ent.getNextAttemptAt());
         return dto;
     }
 
-    private String signatureOf(String type, String payloadJson, long tsMillis, String origin) {
-        String base = type + "|" + payloadJson + "|" + tsMillis + "|" + origin;
+    private String signatureOf(Event e, String payloadJson, long tsMillis) {
+        if (canonicalSignature) {
+            JsonNode tree = payloadTreeOf(e, payloadJson);
+            if (tree != null) {
+                return EventSignature.of(signatureAlgorithm, objectMapper.getFactory(), e.getType(), tree, tsMillis, e.getOriginModule());
+            }
+        }
+        return EventSignature.of(signatureAlgorithm, e.getType(), payloadJson, tsMillis, e.getOriginModule());
+    }
+
+    // Mismo orden de precedencia que payloadJsonOf; solo se parsea si el evento trae el JSON como texto
+    private JsonNode payloadTreeOf(Event e, String payloadJson) {
+        if (e.getPayloadJson() == null && e.getPayloadNode() != null) return e.getPayloadNode();
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(base.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) sb.append(String.format("%02x", b));
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            return Integer.toHexString(base.hashCode());
+            return objectMapper.readTree(payloadJson);
+        } catch (JsonProcessingException ex) {
+            // no es JSON válido: se firma el texto tal cual
+            return null;
         }
     }
 }
@@ -11,8 +11,6 @@ import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import java.io.InputStream;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -36,8 +34,8 @@ public class EventValidator {
         }
     }
 
-    public Set<String> validate(Map<String, Object> payload) {
-        JsonNode node = objectMapper.valueToTree(payload);
+    /** Valida el body ya parseado como árbol (sin conversión intermedia a Map). */
+    public Set<String> validate(JsonNode node) {
         Set<ValidationMessage> errors = schema.validate(node);
         if (errors == null || errors.isEmpty()) return Set.of();
         return errors.stream().map(ValidationMessage::getMessage).collect(Collectors.toSet());
@@ -0,0 +1,284 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.EventDto;
+import com.example.kafkamiddleware.persistence.ModuleMessageEntity;
+import com.example.kafkamiddleware.persistence.ModuleMessageRepository;
+import com.example.kafkamiddleware.persistence.ModuleOffsetEntity;
+import com.example.kafkamiddleware.persistence.ModuleOffsetRepository;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log de entrega durable por módulo (tabla module_messages), alternativa a la cola en memoria de
+ * ModuleMessageStore: los mensajes no se borran al leerlos, cada uno tiene un offset creciente por
+ * módulo y el módulo confirma hasta dónde procesó con el ACK (module_offsets). Un poll perdido o un
+ * reinicio no pierden mensajes: se vuelve a leer desde el último offset confirmado (at-least-once).
+ *
+ * Los appends se agrupan: un único hilo escritor toma lo pendiente, asigna offsets consecutivos y lo
+ * inserta en una sola transacción (saveAll con JDBC batching, inserts en orden de PK). Como solo ese
+ * hilo asigna offsets, un lector nunca ve un hueco que luego se llene. Pensado para una sola instancia.
+ */
+@Service
+public class ModuleDeliveryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ModuleDeliveryLog.class);
+
+    // Tope por lectura aunque el poll no pida max (a diferencia de la cola en memoria, el log no se vacía)
+    private static final int MAX_READ = 1000;
+
+    @Value("${app.modules.log.enabled:false}")
+    private boolean enabled;
+
+    // Máximo de appends por transacción del escritor
+    @Value("${app.modules.log.batch-size:500}")
+    private int batchSize = 500;
+
+    // Appends en espera del escritor; si se llena, append falla (el evento queda FAILED en EventService)
+    @Value("${app.modules.log.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    // Lo ya confirmado por el módulo se borra pasado este tiempo
+    @Value("${app.modules.log.retention-hours:168}")
+    private long retentionHours = 168;
+
+    private final ModuleMessageRepository messageRepository;
+    private final ModuleOffsetRepository offsetRepository;
+
+    @Autowired(required = false)
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final ModuleListeners listeners = new ModuleListeners();
+    // Último offset escrito por módulo; solo lo modifica el hilo escritor
+    private final Map<String, Long> endOffsets = new ConcurrentHashMap<>();
+    private BlockingQueue<PendingAppend> pending;
+    private Thread writer;
+    private ExecutorService notifier;
+    private volatile boolean running;
+
+    /** Mensaje leído del log; message es el EventDto tal como se guardó (sin re-parsear). */
+    public record Entry(long offset, String eventId, @JsonRawValue String message) {
+    }
+
+    private record PendingAppend(String moduleId, String eventId, String json, CompletableFuture<Long> done) {
+    }
+
+    public ModuleDeliveryLog(ModuleMessageRepository messageRepository, ModuleOffsetRepository offsetRepository) {
+        this.messageRepository = messageRepository;
+        this.offsetRepository = offsetRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        pending = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        notifier = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "module-log-notify");
+            t.setDaemon(true);
+            return t;
+        });
+        writer = new Thread(this::writeLoop, "module-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        if (meterRegistry != null) {
+            Gauge.builder("module.log.pending.appends", pending, BlockingQueue::size)
+                    .description("Appends al log de entrega esperando al escritor")
+                    .register(meterRegistry);
+        }
+        log.info("[Middleware] Log de entrega por módulo habilitado (batchSize={}, retención={}h)", batchSize, retentionHours);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) return;
+        // el escritor vacía lo pendiente antes de terminar
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        notifier.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Agrega el mensaje al log del módulo. El future se completa con el offset asignado cuando la
+     * transacción del lote hace commit (recién ahí el mensaje es visible y durable).
+     */
+    public CompletableFuture<Long> append(String moduleId, String eventId, EventDto message) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        if (!running) {
+            done.completeExceptionally(new IllegalStateException("module delivery log is not running"));
+            return done;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException ex) {
+            done.completeExceptionally(ex);
+            return done;
+        }
+        if (!pending.offer(new PendingAppend(moduleId, eventId, json, done))) {
+            done.completeExceptionally(new IllegalStateException("module delivery log queue is full"));
+        }
+        return done;
+    }
+
+    /** Hasta max mensajes del módulo con offset mayor a afterOffset, en orden. */
+    public List<Entry> read(String moduleId, long afterOffset, int max) {
+        List<Entry> out = new ArrayList<>();
+        int limit = Math.min(max, MAX_READ);
+        for (ModuleMessageEntity m : messageRepository.findAfter(moduleId, afterOffset, PageRequest.of(0, limit))) {
+            out.add(new Entry(m.getOffset(), m.getEventId(), m.getMessageJson()));
+        }
+        return out;
+    }
+
+    public long committedOffset(String moduleId) {
+        return offsetRepository.findById(moduleId).map(ModuleOffsetEntity::getCommittedOffset).orElse(0L);
+    }
+
+    /**
+     * Confirma que el módulo procesó todo hasta offset (inclusive). Nunca retrocede ni pasa del último offset
+     * asignado (un offset adelantado haría que purgeCommitted borre mensajes todavía no entregados).
+     * Devuelve el offset vigente.
+     */
+    public long commit(String moduleId, long offset) {
+        if (offset < 0 || offset > endOffset(moduleId)) {
+            throw new IllegalArgumentException("offset " + offset + " out of range for module " + moduleId);
+        }
+        Instant now = Instant.now();
+        if (offsetRepository.advance(moduleId, offset, now) == 0 && !offsetRepository.existsById(moduleId)) {
+            ModuleOffsetEntity ent = new ModuleOffsetEntity();
+            ent.setModuleId(moduleId);
+            ent.setCommittedOffset(offset);
+            ent.setUpdatedAt(now);
+            try {
+                offsetRepository.save(ent);
+            } catch (DataIntegrityViolationException dup) {
+                // otro ACK creó la fila primero
+                offsetRepository.advance(moduleId, offset, now);
+            }
+        }
+        return committedOffset(moduleId);
+    }
+
+    /** Vista para long-poll/SSE que lee desde fromOffset (exclusivo) y avanza con cada next(). */
+    public ModuleFeed feed(String moduleId, long fromOffset) {
+        AtomicLong position = new AtomicLong(fromOffset);
+        return new ModuleFeed() {
+            @Override
+            public List<?> next(int max) {
+                List<Entry> entries = read(moduleId, position.get(), max);
+                if (!entries.isEmpty()) position.set(entries.get(entries.size() - 1).offset());
+                return entries;
+            }
+
+            @Override
+            public void unsent(List<?> messages) {
+                // nada que devolver: siguen en el log y se releen desde el offset confirmado
+            }
+
+            @Override
+            public Runnable subscribe(Runnable listener) {
+                return listeners.subscribe(moduleId, listener);
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${app.modules.log.purge-interval-ms:3600000}", initialDelayString = "${app.modules.log.purge-interval-ms:3600000}")
+    public void purgeCommitted() {
+        if (!enabled) return;
+        Instant before = Instant.now().minus(Duration.ofHours(retentionHours));
+        for (ModuleOffsetEntity o : offsetRepository.findAll()) {
+            int deleted = messageRepository.deleteCommittedBefore(o.getModuleId(), o.getCommittedOffset(), before);
+            if (deleted > 0) log.info("[Middleware] Log de entrega: {} mensajes confirmados purgados de {}", deleted, o.getModuleId());
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(batchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingAppend first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                pending.drainTo(batch, Math.max(0, batchSize - 1));
+                writeBatch(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                log.error("[Middleware] Error escribiendo lote de {} mensajes en el log de entrega: {}", batch.size(), ex.getMessage());
+                batch.forEach(p -> p.done().completeExceptionally(ex));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingAppend> batch) {
+        Instant now = Instant.now();
+        Map<String, Long> next = new HashMap<>();
+        List<ModuleMessageEntity> rows = new ArrayList<>(batch.size());
+        List<Long> offsets = new ArrayList<>(batch.size());
+        for (PendingAppend p : batch) {
+            long offset = next.computeIfAbsent(p.moduleId(), this::endOffset) + 1;
+            next.put(p.moduleId(), offset);
+            ModuleMessageEntity row = new ModuleMessageEntity();
+            row.setModuleId(p.moduleId());
+            row.setOffset(offset);
+            row.setEventId(p.eventId());
+            row.setMessageJson(p.json());
+            row.setAppendedAt(now);
+            rows.add(row);
+            offsets.add(offset);
+        }
+        messageRepository.saveAll(rows);
+        // recién después del commit: los offsets quedan tomados y los lectores pueden verlos
+        endOffsets.putAll(next);
+        for (int i = 0; i < batch.size(); i++) batch.get(i).done().complete(offsets.get(i));
+        // los avisos (long-poll/SSE leen el log) corren fuera del hilo escritor
+        List<String> modules = new ArrayList<>(next.keySet());
+        notifier.execute(() -> modules.forEach(listeners::notify));
+    }
+
+    /** Último offset asignado y confirmado del módulo (0 si todavía no tiene mensajes). */
+    public long endOffset(String moduleId) {
+        return endOffsets.computeIfAbsent(moduleId, m -> {
+            Long max = messageRepository.findMaxOffset(m);
+            return max != null ? max : 0L;
+        });
+    }
+}
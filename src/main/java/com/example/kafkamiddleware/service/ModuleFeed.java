@@ -0,0 +1,19 @@
+package com.example.kafkamiddleware.service;
+
+import java.util.List;
+
+/**
+ * Fuente de mensajes de un módulo para /events/poll (long-poll y SSE): la cola en memoria de
+ * ModuleMessageStore o el log durable de ModuleDeliveryLog leído desde un offset.
+ */
+public interface ModuleFeed {
+
+    /** Siguientes mensajes (hasta max); lista vacía si no hay nada nuevo. */
+    List<?> next(int max);
+
+    /** Mensajes entregados por next() que no llegaron al cliente (conexión cortada). */
+    void unsent(List<?> messages);
+
+    /** Aviso cuando llegan mensajes nuevos; devuelve la acción que lo da de baja. */
+    Runnable subscribe(Runnable listener);
+}
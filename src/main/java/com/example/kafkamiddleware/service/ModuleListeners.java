@@ -0,0 +1,44 @@
+package com.example.kafkamiddleware.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Avisos por módulo cuando hay mensajes nuevos (long-poll / SSE). Los avisos corren en el hilo
+ * que publica el mensaje, así que deben ser baratos (encolar trabajo, completar un DeferredResult).
+ */
+class ModuleListeners {
+
+    private static final Logger log = LoggerFactory.getLogger(ModuleListeners.class);
+
+    private final ConcurrentHashMap<String, Set<Runnable>> listeners = new ConcurrentHashMap<>();
+
+    /** Registra el aviso y devuelve la acción que lo da de baja. */
+    Runnable subscribe(String moduleId, Runnable listener) {
+        // alta y baja dentro de compute: una baja concurrente no puede dejar el aviso en un set huérfano
+        listeners.compute(moduleId, (k, set) -> {
+            Set<Runnable> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            s.add(listener);
+            return s;
+        });
+        return () -> listeners.computeIfPresent(moduleId, (k, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    void notify(String moduleId) {
+        Set<Runnable> set = listeners.get(moduleId);
+        if (set == null) return;
+        for (Runnable listener : set) {
+            try {
+                listener.run();
+            } catch (RuntimeException ex) {
+                log.warn("[Middleware] Error notificando mensaje al módulo {}: {}", moduleId, ex.getMessage());
+            }
+        }
+    }
+}
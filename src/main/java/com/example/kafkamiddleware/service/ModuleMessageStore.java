@@ -1,32 +1,201 @@
 package com.example.kafkamiddleware.service;
 
 import com.example.kafkamiddleware.dto.EventDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 @Service
 public class ModuleMessageStore {
 
-    private final ConcurrentHashMap<String, Queue<EventDto>> store = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(ModuleMessageStore.class);
 
-    public void addMessageForModule(String moduleId, EventDto event) {
-        store.computeIfAbsent(moduleId, k -> new ConcurrentLinkedQueue<>()).add(event);
+    /** Qué hacer cuando la cola de un módulo está llena. */
+    public enum OverflowPolicy {
+        /** Se descarta el mensaje nuevo (addMessageForModule devuelve false). */
+        REJECT,
+        /** Se descarta el mensaje más viejo para hacer lugar al nuevo. */
+        DROP_OLDEST
+    }
+
+    // Cola acotada por módulo: un módulo que deja de hacer poll no puede crecer el heap sin límite
+    @Value("${app.modules.queue.capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${app.modules.queue.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, ModuleQueue> store = new ConcurrentHashMap<>();
+
+    // Long-poll / SSE: avisos por módulo cuando llega un mensaje
+    private final ModuleListeners listeners = new ModuleListeners();
+
+    /**
+     * Encola el mensaje para el módulo. Devuelve false si la cola estaba llena y la política es REJECT;
+     * con DROP_OLDEST siempre se acepta (se pierde el más viejo y se cuenta en module.queue.dropped).
+     */
+    public boolean addMessageForModule(String moduleId, EventDto event) {
+        boolean accepted = store.computeIfAbsent(moduleId, this::newQueue).offer(event, overflowPolicy);
+        if (!accepted) {
+            log.warn("[Middleware] Cola del módulo {} llena (capacidad={}); mensaje descartado", moduleId, queueCapacity);
+            return false;
+        }
+        listeners.notify(moduleId);
+        return true;
+    }
+
+    /**
+     * Devuelve al frente de la cola, en el mismo orden, mensajes ya drenados que no se llegaron a entregar.
+     * No aplica la capacidad ni la política de overflow: ya habían sido aceptados una vez.
+     */
+    public void requeueForModule(String moduleId, List<EventDto> events) {
+        if (events.isEmpty()) return;
+        store.computeIfAbsent(moduleId, this::newQueue).pushFront(events);
+        listeners.notify(moduleId);
     }
 
     public List<EventDto> pollMessagesForModule(String moduleId) {
-        Queue<EventDto> q = store.get(moduleId);
-        List<EventDto> out = new ArrayList<>();
-        if (q == null) return out;
-        EventDto e;
-        while ((e = q.poll()) != null) {
-            out.add(e);
+        return pollMessagesForModule(moduleId, Integer.MAX_VALUE);
+    }
+
+    /** Drena hasta max mensajes del módulo; el resto queda en la cola para el próximo poll. */
+    public List<EventDto> pollMessagesForModule(String moduleId, int max) {
+        ModuleQueue q = store.get(moduleId);
+        if (q == null) return new ArrayList<>();
+        return q.poll(max);
+    }
+
+    public int depth(String moduleId) {
+        ModuleQueue q = store.get(moduleId);
+        return q != null ? q.size() : 0;
+    }
+
+    public long droppedCount(String moduleId) {
+        ModuleQueue q = store.get(moduleId);
+        return q != null ? q.dropped() : 0L;
+    }
+
+    /**
+     * Registra un aviso que se ejecuta cada vez que se encola un mensaje para el módulo.
+     * Devuelve la acción que lo da de baja (llamarla al completar o cortar la conexión).
+     */
+    public Runnable subscribe(String moduleId, Runnable listener) {
+        return listeners.subscribe(moduleId, listener);
+    }
+
+    /** Vista de la cola del módulo para long-poll/SSE: next() drena, lo no enviado vuelve al frente de la cola. */
+    public ModuleFeed feed(String moduleId) {
+        return new ModuleFeed() {
+            @Override
+            public List<?> next(int max) {
+                return pollMessagesForModule(moduleId, max);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void unsent(List<?> messages) {
+                requeueForModule(moduleId, (List<EventDto>) messages);
+            }
+
+            @Override
+            public Runnable subscribe(Runnable listener) {
+                return ModuleMessageStore.this.subscribe(moduleId, listener);
+            }
+        };
+    }
+
+    private ModuleQueue newQueue(String moduleId) {
+        ModuleQueue q = new ModuleQueue(Math.max(1, queueCapacity));
+        if (meterRegistry != null) {
+            Gauge.builder("module.queue.depth", q, ModuleQueue::size)
+                    .description("Mensajes pendientes de poll por módulo")
+                    .tag("module", moduleId)
+                    .register(meterRegistry);
+            FunctionCounter.builder("module.queue.dropped", q, ModuleQueue::dropped)
+                    .description("Mensajes descartados por cola llena")
+                    .tag("module", moduleId)
+                    .tag("policy", overflowPolicy.name())
+                    .register(meterRegistry);
         }
-        return out;
+        return q;
     }
-}
 
+    /**
+     * Buffer circular de capacidad fija; offer/poll bajo el monitor de la cola (una por módulo, sin contención entre módulos).
+     * pushFront puede superar la capacidad momentáneamente; el arreglo vuelve a su tamaño cuando se drena.
+     */
+    static final class ModuleQueue {
+        private final int capacity;
+        private EventDto[] items;
+        private int head;
+        private int size;
+        private long dropped;
+
+        ModuleQueue(int capacity) {
+            this.capacity = capacity;
+            this.items = new EventDto[capacity];
+        }
+
+        synchronized boolean offer(EventDto event, OverflowPolicy policy) {
+            if (size >= capacity) {
+                dropped++;
+                if (policy == OverflowPolicy.REJECT) return false;
+                items[head] = null;
+                head = (head + 1) % items.length;
+                size--;
+            }
+            items[(head + size) % items.length] = event;
+            size++;
+            return true;
+        }
+
+        synchronized void pushFront(List<EventDto> events) {
+            if (size + events.size() > items.length) resize(size + events.size());
+            for (int i = events.size() - 1; i >= 0; i--) {
+                head = (head - 1 + items.length) % items.length;
+                items[head] = events.get(i);
+            }
+            size += events.size();
+        }
+
+        synchronized List<EventDto> poll(int max) {
+            int n = Math.min(max, size);
+            List<EventDto> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                out.add(items[head]);
+                items[head] = null;
+                head = (head + 1) % items.length;
+            }
+            size -= n;
+            if (items.length > capacity && size <= capacity) resize(capacity);
+            return out;
+        }
+
+        private void resize(int length) {
+            EventDto[] resized = new EventDto[length];
+            for (int i = 0; i < size; i++) resized[i] = items[(head + i) % items.length];
+            items = resized;
+            head = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long dropped() {
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Relay del outbox: reintenta periódicamente la entrega a Core de los eventos que siguen en
+ * RECEIVED (fallo de Core, cola de reenvío llena, reinicio de la app...). Da entrega at-least-once
+ * sin bloquear el ingreso; el backoff y el paso a FAILED los decide DeliveryRetryPolicy.
+ * Pensado para una sola instancia: con varias réplicas un evento podría reenviarse dos veces.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Value("${app.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    // Tope de lotes por ejecución para no monopolizar el scheduler
+    @Value("${app.outbox.max-batches-per-run:10}")
+    private int maxBatchesPerRun = 10;
+
+    private final EventStore eventStore;
+    private final CoreApiClient coreApiClient;
+    private final OriginMapper originMapper;
+
+    public OutboxRelay(EventStore eventStore, CoreApiClient coreApiClient, OriginMapper originMapper) {
+        this.eventStore = eventStore;
+        this.coreApiClient = coreApiClient;
+        this.originMapper = originMapper;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}", initialDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void scheduledRelay() {
+        if (!enabled || !coreApiClient.isForwardEnabled()) return;
+        try {
+            relayDue();
+        } catch (Exception ex) {
+            log.error("[Outbox] Error en ciclo de reintentos: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /** Procesa los eventos vencidos por lotes. Devuelve cuántos quedaron DELIVERED. */
+    public int relayDue() {
+        int delivered = 0;
+        int processed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            // Siempre la primera página: lo procesado sale del filtro (DELIVERED o próximo intento en el futuro)
+            List<Event> due = eventStore.findDueForDelivery(Instant.now(), batchSize);
+            if (due.isEmpty()) break;
+            if (coreApiClient.isBatchEnabled()) {
+                delivered += relayGroupedByOrigin(due);
+            } else {
+                for (Event e : due) {
+                    if (coreApiClient.forward(e, originMapper.map(e.getOriginModule()))) delivered++;
+                }
+            }
+            processed += due.size();
+            if (due.size() < batchSize) break;
+        }
+        if (processed > 0) {
+            log.info("[Outbox] Reintentos procesados={} entregados={}", processed, delivered);
+        }
+        return delivered;
+    }
+
+    // Con reenvío por lotes habilitado: un POST por origen canónico en vez de uno por evento
+    private int relayGroupedByOrigin(List<Event> due) {
+        Map<String, List<Event>> byOrigin = due.stream()
+                .collect(Collectors.groupingBy(e -> originMapper.map(e.getOriginModule()), LinkedHashMap::new, Collectors.toList()));
+        int delivered = 0;
+        for (Map.Entry<String, List<Event>> group : byOrigin.entrySet()) {
+            if (coreApiClient.forwardBatch(group.getValue(), group.getKey())) delivered += group.getValue().size();
+        }
+        return delivered;
+    }
+}
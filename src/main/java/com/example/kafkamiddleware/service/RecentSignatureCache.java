@@ -0,0 +1,66 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Firmas guardadas hace poco -> evento persistido, acotado por cantidad y por TTL. Cubre el caso
+ * común de duplicado (el mismo módulo reintentando a los pocos segundos) sin ir a la BD.
+ * Orden de inserción: la entrada más vieja es siempre la primera en vencer, así que put descarta
+ * desde la cabeza lo vencido y lo que exceda maxSize.
+ */
+class RecentSignatureCache {
+
+    private record Entry(Event event, long expiresAtNanos) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    // Guardado por this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    RecentSignatureCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::nanoTime);
+    }
+
+    RecentSignatureCache(int maxSize, long ttlMillis, LongSupplier nanoClock) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.nanoClock = nanoClock;
+    }
+
+    /** Evento guardado con esa firma dentro de la ventana, o null. */
+    synchronized Event get(String signature) {
+        Entry entry = entries.get(signature);
+        if (entry == null) return null;
+        if (entry.expiresAtNanos() - nanoClock.getAsLong() <= 0) {
+            entries.remove(signature);
+            return null;
+        }
+        return entry.event();
+    }
+
+    synchronized void put(String signature, Event event) {
+        long now = nanoClock.getAsLong();
+        // remove + put: la entrada renovada pasa al final y se mantiene el orden por vencimiento
+        entries.remove(signature);
+        entries.put(signature, new Entry(event, now + ttlNanos));
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> head = it.next();
+            if (entries.size() <= maxSize && head.getValue().expiresAtNanos() - now > 0) break;
+            it.remove();
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.kafkamiddleware.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre las firmas de dedupe ya persistidas. mightContain == false es definitivo
+ * (la firma nunca se agregó), así EventStore puede insertar sin buscarla antes en la BD; true puede
+ * ser un falso positivo (probabilidad ~fpp mientras no se supere expectedInsertions).
+ *
+ * Las firmas ya son hashes en hex (SHA-256 / Murmur3): los dos primeros bloques de 64 bits se usan
+ * directamente como h1/h2 y los k índices salen de h1 + i*h2 (Kirsch–Mitzenmacher).
+ * Thread-safe sin locks: put hace OR atómico por palabra.
+ */
+class SignatureBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    SignatureBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(fpp, 1e-9), 0.5);
+        long bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount << 6;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    void put(String signature) {
+        long h1 = hash1(signature);
+        long h2 = hash2(signature, h1);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) words.getAndAccumulate(word, mask, (a, b) -> a | b);
+        }
+    }
+
+    boolean mightContain(String signature) {
+        long h1 = hash1(signature);
+        long h2 = hash2(signature, h1);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    long bitSize() {
+        return numBits;
+    }
+
+    int hashCount() {
+        return numHashes;
+    }
+
+    private static long hash1(String s) {
+        return isHex(s, 0) ? parseHex(s, 0) : mix(s == null ? 0 : s.hashCode());
+    }
+
+    private static long hash2(String s, long h1) {
+        long v = isHex(s, 16) ? parseHex(s, 16) : mix(h1);
+        // h2 impar: recorre todas las posiciones aunque numBits sea potencia de 2
+        return v | 1;
+    }
+
+    private static boolean isHex(String s, int off) {
+        if (s == null || s.length() < off + 16) return false;
+        for (int i = off; i < off + 16; i++) {
+            if (Character.digit(s.charAt(i), 16) < 0) return false;
+        }
+        return true;
+    }
+
+    /** 16 dígitos hex desde off como long sin signo (validados antes con isHex). */
+    private static long parseHex(String s, int off) {
+        long v = 0;
+        for (int i = off; i < off + 16; i++) v = (v << 4) | Character.digit(s.charAt(i), 16);
+        return v;
+    }
+
+    // SplitMix64: para firmas que no son hex (no ocurre con EventSignature, pero no debe romper)
+    private static long mix(long z) {
+        z += 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -8,26 +8,126 @@ import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class TokenService {
 
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
     @Value("${security.jwks-uri:}")
     private String jwksUri;
 
+    @Value("${security.jwks.cache-ttl-ms:600000}")
+    private long jwkCacheTtl = 10 * 60 * 1000L; // 10 minutes
+
+    // Margen antes del TTL en el que se refresca en segundo plano (el hot path sigue usando el índice actual)
+    @Value("${security.jwks.refresh-ahead-ms:60000}")
+    private long jwkRefreshAheadMs = 60 * 1000L;
+
+    // Intervalo mínimo entre descargas: evita que tokens con kid inventado martillen el JWKS
+    @Value("${security.jwks.min-refetch-interval-ms:10000}")
+    private long jwkMinRefetchIntervalMs = 10 * 1000L;
+
     // simple cache for JWKSet
     private volatile JWKSet cachedJwkSet;
     private volatile long jwkSetFetchedAt = 0L; // epoch millis
-    private final long jwkCacheTtl = 10 * 60 * 1000L; // 10 minutes
+    private volatile long jwkLastFetchAttemptAt = 0L;
+
+    // Verificadores ya construidos por kid; se reemplaza entero (inmutable) en cada refresh
+    private volatile VerifierIndex verifiers = VerifierIndex.EMPTY;
+    // Single-flight: como mucho una descarga del JWKS en curso
+    private final AtomicReference<CompletableFuture<VerifierIndex>> inflightRefresh = new AtomicReference<>();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "jwks-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record VerifierIndex(Map<String, List<JWSVerifier>> byKid, List<JWSVerifier> all) {
+        static final VerifierIndex EMPTY = new VerifierIndex(Map.of(), List.of());
+    }
+
+    // Tokens ya validados: digest del token -> (clientId, exp). Los módulos reusan el mismo token por minutos.
+    @Value("${security.token-cache.enabled:true}")
+    private boolean tokenCacheEnabled = true;
+
+    @Value("${security.token-cache.max-size:10000}")
+    private int tokenCacheMaxSize = 10000;
+
+    private final Map<String, ValidatedToken> tokenCache = new ConcurrentHashMap<>();
+    private final AtomicLong tokenCacheHits = new AtomicLong();
+    private final AtomicLong tokenCacheMisses = new AtomicLong();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private record ValidatedToken(String clientId, long expiresAtMillis) {
+    }
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        // Precarga sin bloquear el arranque; si falla, el primer token la reintenta
+        if (jwksUri != null && !jwksUri.isBlank()) refreshJwks();
+        if (meterRegistry == null) return;
+        FunctionCounter.builder("security.token.cache.requests", tokenCacheHits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Validaciones de token resueltas desde la cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.token.cache.requests", tokenCacheMisses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Validaciones de token completas (parseo + firma)")
+                .register(meterRegistry);
+        Gauge.builder("security.token.cache.hit.ratio", this, TokenService::getTokenCacheHitRatio)
+                .description("Proporción de validaciones de token servidas desde la cache")
+                .register(meterRegistry);
+        Gauge.builder("security.token.cache.size", tokenCache, Map::size)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
 
     public String validateAndExtractClientId(String bearerToken) throws TokenValidationException {
         if (bearerToken == null || bearerToken.isBlank()) {
@@ -39,6 +139,27 @@ public class TokenService {
             token = token.substring(7);
         }
 
+        if (!tokenCacheEnabled) {
+            return validate(token).clientId();
+        }
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        ValidatedToken cached = tokenCache.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                tokenCacheHits.incrementAndGet();
+                return cached.clientId();
+            }
+            tokenCache.remove(key, cached);
+        }
+        tokenCacheMisses.incrementAndGet();
+
+        ValidatedToken validated = validate(token);
+        cacheValidated(key, validated, now);
+        return validated.clientId();
+    }
+
+    private ValidatedToken validate(String token) throws TokenValidationException {
         SignedJWT jwt;
         try {
             jwt = SignedJWT.parse(token);
@@ -47,9 +168,10 @@ public class TokenService {
         }
 
         // validate expiry
+        Date exp;
         try {
             var claims = jwt.getJWTClaimsSet();
-            Date exp = claims.getExpirationTime();
+            exp = claims.getExpirationTime();
             if (exp == null) {
                 throw new TokenValidationException("Token has no expiration");
             }
@@ -77,58 +199,148 @@ public class TokenService {
             if (clientId == null) clientId = claims.getStringClaim("clientId");
             if (clientId == null) clientId = claims.getSubject();
             if (clientId == null) throw new TokenValidationException("Unable to extract client id from token");
-            return clientId;
+            return new ValidatedToken(clientId, exp.getTime());
         } catch (ParseException e) {
             throw new TokenValidationException("Failed to extract claims", e);
         }
     }
 
+    private void cacheValidated(String key, ValidatedToken validated, long now) {
+        if (tokenCache.size() >= tokenCacheMaxSize) {
+            // Primero los vencidos; si no alcanza, se descartan entradas cualquiera hasta volver bajo el tope
+            tokenCache.values().removeIf(t -> t.expiresAtMillis() <= now);
+            Iterator<String> it = tokenCache.keySet().iterator();
+            while (tokenCache.size() >= tokenCacheMaxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        tokenCache.put(key, validated);
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        return Base64.getEncoder().withoutPadding().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public double getTokenCacheHitRatio() {
+        long hits = tokenCacheHits.get();
+        long total = hits + tokenCacheMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
     private void verifySignatureWithJwks(SignedJWT jwt) throws Exception {
         JWSHeader header = jwt.getHeader();
         String kid = header.getKeyID();
-        JWKSet jwkSet = getJwkSet();
-        List<JWK> matches;
-        if (kid != null) {
-            matches = jwkSet.getKeys().stream().filter(j -> Objects.equals(j.getKeyID(), kid)).toList();
-        } else {
-            matches = jwkSet.getKeys();
+        long now = System.currentTimeMillis();
+
+        VerifierIndex index = verifiers;
+        List<JWSVerifier> matches = candidates(index, kid);
+        if (matches.isEmpty()) {
+            // kid desconocido (rotación de claves o cache vacía): esperar la descarga compartida
+            matches = candidates(latestIndex(index, now), kid);
+        } else if (jwkSetFetchedAt > 0 && now - jwkSetFetchedAt > jwkCacheTtl - jwkRefreshAheadMs
+                && now - jwkLastFetchAttemptAt >= jwkMinRefetchIntervalMs) {
+            refreshJwks();
         }
 
         if (matches.isEmpty()) {
             throw new TokenValidationException("No matching JWK found for kid: " + kid);
         }
 
-        boolean verified = false;
-        for (JWK jwk : matches) {
-            if (jwk instanceof RSAKey) {
-                RSAKey rsa = (RSAKey) jwk;
-                try {
-                    JWSVerifier verifier = new RSASSAVerifier(rsa.toRSAPublicKey());
-                    if (jwt.verify(verifier)) {
-                        verified = true;
-                        break;
-                    }
-                } catch (JOSEException e) {
-                    // try next key
-                }
+        for (JWSVerifier verifier : matches) {
+            try {
+                if (jwt.verify(verifier)) return;
+            } catch (JOSEException e) {
+                // try next key
             }
         }
+        throw new TokenValidationException("Signature verification failed");
+    }
 
-        if (!verified) throw new TokenValidationException("Signature verification failed");
+    private static List<JWSVerifier> candidates(VerifierIndex index, String kid) {
+        if (kid == null) return index.all();
+        return index.byKid().getOrDefault(kid, List.of());
     }
 
-    private synchronized JWKSet getJwkSet() throws Exception {
-        long now = System.currentTimeMillis();
-        if (cachedJwkSet == null || (now - jwkSetFetchedAt) > jwkCacheTtl) {
-            if (jwksUri == null || jwksUri.isBlank()) {
-                throw new TokenValidationException("JWKS URI not configured");
+    private VerifierIndex latestIndex(VerifierIndex seen, long now) throws Exception {
+        CompletableFuture<VerifierIndex> inflight = inflightRefresh.get();
+        if (inflight != null) return await(inflight);
+        VerifierIndex current = verifiers;
+        // Otro hilo ya lo refrescó, o se descargó hace muy poco: no volver a pedirlo
+        if (current != seen || now - jwkLastFetchAttemptAt < jwkMinRefetchIntervalMs) return current;
+        return await(refreshJwks());
+    }
+
+    private static VerifierIndex await(CompletableFuture<VerifierIndex> refresh) throws Exception {
+        try {
+            return refresh.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private CompletableFuture<VerifierIndex> refreshJwks() {
+        while (true) {
+            CompletableFuture<VerifierIndex> current = inflightRefresh.get();
+            if (current != null) return current;
+            CompletableFuture<VerifierIndex> mine = new CompletableFuture<>();
+            if (inflightRefresh.compareAndSet(null, mine)) {
+                jwkLastFetchAttemptAt = System.currentTimeMillis();
+                try {
+                    refreshExecutor.execute(() -> {
+                        VerifierIndex loaded = null;
+                        Throwable failure = null;
+                        try {
+                            loaded = loadJwks();
+                        } catch (Throwable t) {
+                            log.warn("[Middleware] No se pudo descargar el JWKS ({}): {}", jwksUri, t.getMessage());
+                            failure = t;
+                        }
+                        // Liberar el slot antes de completar: quien llegue después pide una descarga nueva
+                        inflightRefresh.compareAndSet(mine, null);
+                        if (failure == null) mine.complete(loaded);
+                        else mine.completeExceptionally(failure);
+                    });
+                } catch (RejectedExecutionException e) {
+                    inflightRefresh.compareAndSet(mine, null);
+                    mine.completeExceptionally(e);
+                }
+                return mine;
             }
-            try (InputStream is = new URL(jwksUri).openStream()) {
-                cachedJwkSet = JWKSet.load(is);
-                jwkSetFetchedAt = now;
+        }
+    }
+
+    private VerifierIndex loadJwks() throws Exception {
+        if (jwksUri == null || jwksUri.isBlank()) {
+            throw new TokenValidationException("JWKS URI not configured");
+        }
+        JWKSet jwkSet;
+        try (InputStream is = new URL(jwksUri).openStream()) {
+            jwkSet = JWKSet.load(is);
+        }
+        Map<String, List<JWSVerifier>> byKid = new HashMap<>();
+        List<JWSVerifier> all = new ArrayList<>();
+        for (JWK jwk : jwkSet.getKeys()) {
+            if (!(jwk instanceof RSAKey rsa)) continue;
+            try {
+                JWSVerifier verifier = new RSASSAVerifier(rsa.toRSAPublicKey());
+                all.add(verifier);
+                if (rsa.getKeyID() != null) {
+                    byKid.computeIfAbsent(rsa.getKeyID(), k -> new ArrayList<>()).add(verifier);
+                }
+            } catch (JOSEException e) {
+                log.warn("[Middleware] JWK kid={} ignorada: {}", rsa.getKeyID(), e.getMessage());
             }
         }
-        return cachedJwkSet;
+        Map<String, List<JWSVerifier>> frozen = new HashMap<>();
+        byKid.forEach((k, v) -> frozen.put(k, List.copyOf(v)));
+        VerifierIndex index = new VerifierIndex(Map.copyOf(frozen), List.copyOf(all));
+        verifiers = index;
+        cachedJwkSet = jwkSet;
+        jwkSetFetchedAt = System.currentTimeMillis();
+        return index;
     }
 
     public static class TokenValidationException extends Exception {
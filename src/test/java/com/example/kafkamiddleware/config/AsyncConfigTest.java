@@ -0,0 +1,50 @@
+package com.example.kafkamiddleware.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.core.forward.executor.core-size=2",
+        "app.core.forward.executor.max-size=3",
+        "app.core.forward.executor.queue-capacity=5"
+})
+class AsyncConfigTest {
+
+    @Autowired
+    @Qualifier(AsyncConfig.CORE_FORWARD_EXECUTOR)
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private org.springframework.context.ApplicationContext context;
+
+    @Test
+    void coreForwardExecutor_isBoundedAndConfigurable() {
+        assertEquals(2, executor.getCorePoolSize());
+        assertEquals(3, executor.getMaxPoolSize());
+        assertEquals(5, executor.getQueueCapacity());
+    }
+
+    @Test
+    void coreForwardExecutor_exposesQueueActiveAndRejectionMetrics() {
+        assertNotNull(meterRegistry.find("executor.queued").tag("name", AsyncConfig.CORE_FORWARD_EXECUTOR).gauge());
+        assertNotNull(meterRegistry.find("executor.active").tag("name", AsyncConfig.CORE_FORWARD_EXECUTOR).gauge());
+        assertNotNull(meterRegistry.find("core.forward.rejected").functionCounter());
+    }
+
+    @Test
+    void applicationTaskExecutor_isKeptAlongsideDedicatedExecutors() {
+        Object executor = context.getBean(org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+        assertInstanceOf(ThreadPoolTaskExecutor.class, executor);
+        assertSame(executor, context.getBean("taskExecutor"));
+        assertNotSame(executor, this.executor);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.kafkamiddleware.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoreHttpClientConfigTest {
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile long delayMs = 0;
+
+    @BeforeEach
+    void startStubCore() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/core/events", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.getRequestBody().readAllBytes();
+            try { Thread.sleep(delayMs); } catch (InterruptedException ignored) { }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(202, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubCore() {
+        server.stop(0);
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/core/events";
+    }
+
+    private CoreHttpClientConfig config(String type, long readTimeoutMs) throws Exception {
+        CoreHttpClientConfig cfg = new CoreHttpClientConfig();
+        Map<String, Object> values = Map.of(
+                "clientType", type,
+                "maxConnections", 10,
+                "maxConnectionsPerRoute", 5,
+                "connectTimeoutMs", 1000L,
+                "readTimeoutMs", readTimeoutMs,
+                "poolAcquireTimeoutMs", 1000L,
+                "idleEvictionMs", 30000L,
+                "virtualThreads", true);
+        for (var e : values.entrySet()) {
+            java.lang.reflect.Field f = CoreHttpClientConfig.class.getDeclaredField(e.getKey());
+            f.setAccessible(true);
+            f.set(cfg, e.getValue());
+        }
+        return cfg;
+    }
+
+    @Test
+    void apacheClient_reusesKeepAliveConnection() throws Exception {
+        CoreHttpClientConfig cfg = config("APACHE", 2000);
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, cfg.coreClientHttpRequestFactory());
+        RestTemplate rt = cfg.coreRestTemplate(cfg.coreClientHttpRequestFactory());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(202, rt.postForEntity(url(), Map.of("i", i), String.class).getStatusCode().value());
+        }
+
+        assertEquals(1, clientPorts.size(), "las 5 peticiones deberían ir por la misma conexión");
+    }
+
+    @Test
+    void apacheClient_readTimeout_failsFast() throws Exception {
+        CoreHttpClientConfig cfg = config("APACHE", 200);
+        RestTemplate rt = cfg.coreRestTemplate(cfg.coreClientHttpRequestFactory());
+        delayMs = 1500;
+
+        assertThrows(ResourceAccessException.class, () -> rt.postForEntity(url(), Map.of(), String.class));
+    }
+
+    @Test
+    void jdkClient_postsToCore() throws Exception {
+        CoreHttpClientConfig cfg = config("JDK", 2000);
+        assertInstanceOf(JdkClientHttpRequestFactory.class, cfg.coreClientHttpRequestFactory());
+        RestTemplate rt = cfg.coreRestTemplate(cfg.coreClientHttpRequestFactory());
+
+        assertEquals(202, rt.postForEntity(url(), Map.of("k", "v"), String.class).getStatusCode().value());
+    }
+}
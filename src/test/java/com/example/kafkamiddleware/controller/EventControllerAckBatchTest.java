@@ -0,0 +1,167 @@
+package com.example.kafkamiddleware.controller;
+
+import com.example.kafkamiddleware.persistence.EventAckEntity;
+import com.example.kafkamiddleware.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EventControllerAckBatchTest {
+
+    static class TestTokenService extends TokenService {
+        private final java.util.Map<String,Object> map = new java.util.HashMap<>();
+        public void setResponse(String b, String c) { map.put(b,c); }
+        @Override public String validateAndExtractClientId(String bearerToken) throws TokenValidationException { if (map.containsKey(bearerToken)) return (String) map.get(bearerToken); throw new TokenService.TokenValidationException("no token"); }
+    }
+
+    private AckService ackService;
+    private CoreApiClient coreApiClient;
+    private EventController controller;
+
+    @BeforeEach
+    void setUp() {
+        TestTokenService tokenService = new TestTokenService();
+        tokenService.setResponse("Bearer m", "modM");
+        tokenService.setResponse("Bearer x", "modX");
+        ModuleRegistry moduleRegistry = mock(ModuleRegistry.class);
+        when(moduleRegistry.isAuthorizedModule("modM")).thenReturn(true);
+        OriginMapper originMapper = mock(OriginMapper.class);
+        when(originMapper.map("modM")).thenReturn("Ventas");
+        ackService = mock(AckService.class);
+        coreApiClient = mock(CoreApiClient.class);
+        controller = new EventController(tokenService, moduleRegistry, mock(EventValidator.class), new EventStore(), new ModuleMessageStore(),
+                new ObjectMapper(), coreApiClient, originMapper, ackService);
+        when(ackService.ackBatch(any(), any())).thenAnswer(inv -> {
+            List<AckService.AckItem> items = inv.getArgument(1);
+            List<AckService.AckResult> out = new ArrayList<>();
+            for (AckService.AckItem item : items) {
+                EventAckEntity ent = new EventAckEntity();
+                ent.setEventId(item.eventId);
+                ent.setConsumer(inv.getArgument(0));
+                ent.setStatus("CONSUMED");
+                ent.setAttempts(1);
+                ent.setFirstSeenAt(Instant.now());
+                ent.setLastSeenAt(Instant.now());
+                out.add(new AckService.AckResult(ent, true));
+            }
+            return out;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acknowledgeEvents_appliesValidItemsInOneBatchAndForwardsEachAckToCore() {
+        String e1 = UUID.randomUUID().toString();
+        String e2 = UUID.randomUUID().toString();
+
+        ResponseEntity<?> resp = controller.acknowledgeEvents("Bearer m", List.of(
+                Map.of("eventId", e1, "consumedAt", "2025-01-01T10:00:00Z"),
+                Map.of("eventId", "no-es-uuid"),
+                Map.of("eventId", e2)));
+
+        assertEquals(200, resp.getStatusCode().value());
+        Map<String, Object> body = (Map<String, Object>) resp.getBody();
+        assertEquals("Ventas", body.get("consumer"));
+        assertEquals(2, body.get("acknowledged"));
+        List<Map<String, Object>> results = (List<Map<String, Object>>) body.get("results");
+        assertEquals(e1, results.get(0).get("eventId"));
+        assertEquals(true, results.get(0).get("created"));
+        assertEquals("invalid eventId", results.get(1).get("error"));
+        assertEquals(e2, results.get(2).get("eventId"));
+
+        ArgumentCaptor<List<AckService.AckItem>> items = ArgumentCaptor.forClass(List.class);
+        verify(ackService).ackBatch(eq("Ventas"), items.capture());
+        assertEquals(2, items.getValue().size());
+        assertEquals(Instant.parse("2025-01-01T10:00:00Z"), items.getValue().get(0).consumedAt);
+
+        // sin AckRelay cada ACK aplicado va a /core/ack (Core no expone /core/ack/batch)
+        ArgumentCaptor<Map<String, Object>> forwarded = ArgumentCaptor.forClass(Map.class);
+        verify(coreApiClient, times(2)).forwardAckToCore(forwarded.capture());
+        assertEquals(List.of(e1, e2), forwarded.getAllValues().stream().map(m -> m.get("eventId")).toList());
+        verify(coreApiClient, never()).forwardAcksToCore(any());
+    }
+
+    @Test
+    void acknowledgeEvents_rejectsEmptyOversizedAndUnauthorized() throws Exception {
+        assertEquals(400, controller.acknowledgeEvents("Bearer m", List.of()).getStatusCode().value());
+        assertEquals(401, controller.acknowledgeEvents("Bearer nope", List.of(Map.of())).getStatusCode().value());
+        assertEquals(403, controller.acknowledgeEvents("Bearer x", List.of(Map.of())).getStatusCode().value());
+
+        java.lang.reflect.Field f = EventController.class.getDeclaredField("maxAckBatchSize");
+        f.setAccessible(true);
+        f.set(controller, 1);
+        String id = UUID.randomUUID().toString();
+        assertEquals(413, controller.acknowledgeEvents("Bearer m", List.of(Map.of("eventId", id), Map.of("eventId", id))).getStatusCode().value());
+        verifyNoInteractions(ackService);
+    }
+
+    @Test
+    void acknowledgeEvents_withDeliveryLog_commitsHighestOffset() throws Exception {
+        ModuleDeliveryLog deliveryLog = mock(ModuleDeliveryLog.class);
+        when(deliveryLog.isEnabled()).thenReturn(true);
+        when(deliveryLog.commit("modM", 9L)).thenReturn(9L);
+        when(deliveryLog.endOffset("modM")).thenReturn(9L);
+        java.lang.reflect.Field f = EventController.class.getDeclaredField("moduleDeliveryLog");
+        f.setAccessible(true);
+        f.set(controller, deliveryLog);
+
+        ResponseEntity<?> resp = controller.acknowledgeEvents("Bearer m", List.of(
+                Map.of("eventId", UUID.randomUUID().toString(), "offset", 9),
+                Map.of("eventId", UUID.randomUUID().toString(), "offset", "4")));
+
+        assertEquals(9L, ((Map<?, ?>) resp.getBody()).get("committedOffset"));
+        verify(deliveryLog).commit("modM", 9L);
+    }
+
+    @Test
+    void acknowledgeEvents_offsetBeyondEndOfLog_isRejectedPerItem() throws Exception {
+        ModuleDeliveryLog deliveryLog = mock(ModuleDeliveryLog.class);
+        when(deliveryLog.isEnabled()).thenReturn(true);
+        when(deliveryLog.endOffset("modM")).thenReturn(5L);
+        when(deliveryLog.commit("modM", 4L)).thenReturn(4L);
+        java.lang.reflect.Field f = EventController.class.getDeclaredField("moduleDeliveryLog");
+        f.setAccessible(true);
+        f.set(controller, deliveryLog);
+
+        ResponseEntity<?> resp = controller.acknowledgeEvents("Bearer m", List.of(
+                Map.of("eventId", UUID.randomUUID().toString(), "offset", 4),
+                Map.of("eventId", UUID.randomUUID().toString(), "offset", 1000)));
+
+        Map<?, ?> body = (Map<?, ?>) resp.getBody();
+        assertEquals(4L, body.get("committedOffset"));
+        assertEquals(1, body.get("acknowledged"));
+        Map<?, ?> rejected = (Map<?, ?>) ((List<?>) body.get("results")).get(1);
+        assertEquals("offset beyond end of log", rejected.get("error"));
+        verify(deliveryLog, never()).commit("modM", 1000L);
+    }
+
+    @Test
+    void acknowledgeEvents_withAckRelay_leavesRelayToBackgroundThread() throws Exception {
+        AckRelay relay = mock(AckRelay.class);
+        when(relay.isEnabled()).thenReturn(true);
+        java.lang.reflect.Field f = EventController.class.getDeclaredField("ackRelay");
+        f.setAccessible(true);
+        f.set(controller, relay);
+        when(ackService.ack(any(), any(), any())).thenAnswer(inv -> ackService.ackBatch(inv.getArgument(1),
+                List.of(new AckService.AckItem(inv.getArgument(0), null))).get(0));
+
+        controller.acknowledgeEvents("Bearer m", List.of(Map.of("eventId", UUID.randomUUID().toString())));
+        controller.acknowledgeEvent("Bearer m", UUID.randomUUID().toString(), null);
+
+        verify(relay, times(2)).wakeUp();
+        verify(coreApiClient, never()).forwardAcksToCore(any());
+        verify(coreApiClient, never()).forwardAckToCore(any());
+    }
+}
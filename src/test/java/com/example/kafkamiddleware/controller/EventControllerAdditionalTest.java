@@ -1,5 +1,6 @@
 package com.example.kafkamiddleware.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.service.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -55,7 +56,7 @@ class EventControllerAdditionalTest {
         when(originMapper.map("modV")).thenReturn("Ventas");
 
         Map<String,Object> body = Map.of("type","t", "payload", Map.of("x",1));
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer vnull", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer vnull", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> rb = (Map<?,?>) resp.getBody();
@@ -70,7 +71,7 @@ class EventControllerAdditionalTest {
         when(originMapper.map("modO")).thenReturn(null);
 
         Map<String,Object> body = Map.of("type","t");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer onull", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer onull", json(body));
         assertEquals(202, resp.getStatusCode().value());
 
         ArgumentCaptor<Event> capEv = ArgumentCaptor.forClass(Event.class);
@@ -85,7 +86,7 @@ class EventControllerAdditionalTest {
         when(moduleRegistry.isAuthorizedModule("modP")).thenReturn(true);
 
         // ensure no messages
-        var resp = controller.pollEvents("Bearer pem");
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.pollEvents("Bearer pem", null, null, null).getResult();
         assertEquals(200, resp.getStatusCode().value());
         assertInstanceOf(List.class, resp.getBody());
         List<?> list = (List<?>) resp.getBody();
@@ -121,4 +122,8 @@ class EventControllerAdditionalTest {
         // parsed consumedAt was invalid, so controller passes null
         assertNull(cap.getValue());
     }
+
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
 }
@@ -0,0 +1,124 @@
+package com.example.kafkamiddleware.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventControllerBatchTest {
+
+    static class TestTokenService extends TokenService {
+        private final java.util.Map<String,Object> map = new java.util.HashMap<>();
+        public void setResponse(String b, String c) { map.put(b,c); }
+        public void setThrow(String b, String msg) { map.put(b, new TokenService.TokenValidationException(msg)); }
+        @Override public String validateAndExtractClientId(String bearerToken) throws TokenValidationException { if (map.containsKey(bearerToken)) { Object v = map.get(bearerToken); if (v instanceof TokenService.TokenValidationException) throw (TokenService.TokenValidationException)v; return (String)v; } throw new TokenService.TokenValidationException("no token"); }
+    }
+
+    private TestTokenService tokenService;
+    private ModuleRegistry moduleRegistry;
+    private EventValidator eventValidator;
+    private EventStore eventStore;
+    private CoreApiClient coreApiClient;
+    private EventController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tokenService = new TestTokenService();
+        moduleRegistry = mock(ModuleRegistry.class);
+        eventValidator = mock(EventValidator.class);
+        eventStore = new EventStore();
+        java.lang.reflect.Field f = EventStore.class.getDeclaredField("storageType"); f.setAccessible(true); f.set(eventStore, "MEMORY");
+        coreApiClient = mock(CoreApiClient.class);
+        OriginMapper originMapper = mock(OriginMapper.class);
+        when(originMapper.map("ventas-app")).thenReturn("Ventas");
+        controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, new ModuleMessageStore(), new ObjectMapper(), coreApiClient, originMapper, mock(AckService.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> results(ResponseEntity<?> resp) {
+        return (List<Map<String, Object>>) ((Map<String, Object>) resp.getBody()).get("results");
+    }
+
+    @Test
+    void receiveEventBatch_mixedItems_returnsPerItemResults() {
+        tokenService.setResponse("Bearer ok", "ventas-app");
+        when(moduleRegistry.isAuthorizedModule("ventas-app")).thenReturn(true);
+        Map<String, Object> bad = Map.of("payload", Map.of());
+        when(eventValidator.validate(any())).thenReturn(Set.of());
+        when(eventValidator.validate(json(bad))).thenReturn(Set.of("$.type: is missing but it is required"));
+
+        Map<String, Object> a = Map.of("type", "venta", "payload", Map.of("id", 1), "timestamp", "2025-01-01T00:00:00Z");
+        Map<String, Object> b = Map.of("type", "venta", "payload", Map.of("id", 2), "timestamp", "2025-01-01T00:00:00Z");
+        Map<String, Object> blank = Map.of("type", " ");
+
+        ResponseEntity<?> resp = controller.receiveEventBatch("Bearer ok", List.of(json(a), json(bad), json(b), json(a), json(blank)));
+
+        assertEquals(202, resp.getStatusCode().value());
+        List<Map<String, Object>> results = results(resp);
+        assertEquals(5, results.size());
+
+        assertEquals(false, results.get(0).get("duplicate"));
+        assertNotNull(results.get(0).get("eventId"));
+        assertEquals("schema_validation_failed", results.get(1).get("error"));
+        assertEquals(false, results.get(2).get("duplicate"));
+        assertEquals(true, results.get(3).get("duplicate"));
+        assertEquals(results.get(0).get("eventId"), results.get(3).get("eventId"));
+        assertEquals("type is required", results.get(4).get("error"));
+
+        assertEquals(2, eventStore.listAll().size());
+        // un reenvío por id distinto
+        verify(coreApiClient, times(2)).forwardAsync(any(Event.class), eq("Ventas"));
+    }
+
+    @Test
+    void receiveEventBatch_invalidToken_returns401AndSavesNothing() {
+        tokenService.setThrow("Bearer bad", "Token expired");
+
+        ResponseEntity<?> resp = controller.receiveEventBatch("Bearer bad", List.of(json(Map.of("type", "x"))));
+
+        assertEquals(401, resp.getStatusCode().value());
+        assertTrue(eventStore.listAll().isEmpty());
+        verifyNoInteractions(eventValidator, coreApiClient);
+    }
+
+    @Test
+    void receiveEventBatch_unauthorizedModule_returns403() {
+        tokenService.setResponse("Bearer ok", "intruso");
+        when(moduleRegistry.isAuthorizedModule("intruso")).thenReturn(false);
+
+        ResponseEntity<?> resp = controller.receiveEventBatch("Bearer ok", List.of(json(Map.of("type", "x"))));
+
+        assertEquals(403, resp.getStatusCode().value());
+    }
+
+    @Test
+    void receiveEventBatch_emptyOrTooLarge_isRejected() throws Exception {
+        tokenService.setResponse("Bearer ok", "ventas-app");
+        when(moduleRegistry.isAuthorizedModule("ventas-app")).thenReturn(true);
+
+        assertEquals(400, controller.receiveEventBatch("Bearer ok", List.of()).getStatusCode().value());
+
+        java.lang.reflect.Field f = EventController.class.getDeclaredField("maxBatchSize");
+        f.setAccessible(true);
+        f.set(controller, 2);
+        List<JsonNode> big = new ArrayList<>();
+        for (int i = 0; i < 3; i++) big.add(json(Map.of("type", "x" + i)));
+
+        assertEquals(413, controller.receiveEventBatch("Bearer ok", big).getStatusCode().value());
+    }
+
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
+}
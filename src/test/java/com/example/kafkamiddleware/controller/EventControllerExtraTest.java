@@ -1,5 +1,6 @@
 package com.example.kafkamiddleware.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.dto.EventStatus;
 import com.example.kafkamiddleware.service.*;
@@ -56,7 +57,7 @@ class EventControllerExtraTest {
         controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, new ModuleMessageStore(), new ObjectMapper(), mock(CoreApiClient.class), originMapper, mock(AckService.class));
 
         Map<String,Object> body = Map.of("type","t","originModule","otherModule");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer x", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer x", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -77,7 +78,7 @@ class EventControllerExtraTest {
         controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, new ModuleMessageStore(), new ObjectMapper(), mock(CoreApiClient.class), originMapper, mock(AckService.class));
 
         Map<String,Object> body = Map.of("type","t","payload","not-json");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer s", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer s", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -99,7 +100,7 @@ class EventControllerExtraTest {
         controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, new ModuleMessageStore(), new ObjectMapper(), mock(CoreApiClient.class), originMapper, mock(AckService.class));
 
         Map<String,Object> body = Map.of("type","t");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer n", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer n", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -119,7 +120,7 @@ class EventControllerExtraTest {
         eventStore.save(new Event("t1", Map.of(), Instant.now(), "clientL", EventStatus.RECEIVED));
         eventStore.save(new Event("t2", Map.of(), Instant.now(), "clientL", EventStatus.DELIVERED));
 
-        ResponseEntity<?> resp = controller.listEvents("Bearer l", null);
+        ResponseEntity<?> resp = controller.listEvents("Bearer l", null, null, null, null, null);
         assertEquals(200, resp.getStatusCode().value());
         assertInstanceOf(List.class, resp.getBody());
         List<?> list = (List<?>) resp.getBody();
@@ -136,7 +137,7 @@ class EventControllerExtraTest {
         eventStore.save(new Event("t1", Map.of(), Instant.now(), "clientLc", EventStatus.RECEIVED));
         eventStore.save(new Event("t2", Map.of(), Instant.now(), "clientLc", EventStatus.DELIVERED));
 
-        ResponseEntity<?> resp = controller.listEvents("Bearer lc", "rEcEiVed");
+        ResponseEntity<?> resp = controller.listEvents("Bearer lc", "rEcEiVed", null, null, null, null);
         assertEquals(200, resp.getStatusCode().value());
         assertInstanceOf(List.class, resp.getBody());
         List<?> list = (List<?>) resp.getBody();
@@ -144,10 +145,41 @@ class EventControllerExtraTest {
         assertEquals(1, list.size());
     }
 
+    @Test
+    void listEvents_withLimit_returnsNextCursorHeaderAndFilters() {
+        tokenService.setResponse("Bearer p","clientP");
+
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        eventStore.save(new Event("t1", Map.of("n", 1), base, "clientP", EventStatus.RECEIVED));
+        eventStore.save(new Event("t1", Map.of("n", 2), base.plusSeconds(1), "clientP", EventStatus.RECEIVED));
+        eventStore.save(new Event("t1", Map.of("n", 3), base.plusSeconds(2), "otherModule", EventStatus.RECEIVED));
+        eventStore.save(new Event("t2", Map.of("n", 4), base.plusSeconds(3), "clientP", EventStatus.RECEIVED));
+
+        ResponseEntity<?> first = controller.listEvents("Bearer p", null, "t1", "clientP", null, 1);
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(1, ((List<?>) first.getBody()).size());
+        String cursor = first.getHeaders().getFirst(EventController.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor);
+
+        ResponseEntity<?> second = controller.listEvents("Bearer p", null, "t1", "clientP", cursor, 1);
+        List<?> items = (List<?>) second.getBody();
+        assertEquals(1, items.size());
+        assertEquals(base.plusSeconds(1), ((Event) items.get(0)).getTimestamp());
+        assertNull(second.getHeaders().getFirst(EventController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void listEvents_invalidLimitOrCursor_returnsBadRequest() {
+        tokenService.setResponse("Bearer pb","clientPb");
+        assertEquals(400, controller.listEvents("Bearer pb", null, null, null, null, 0).getStatusCode().value());
+        assertEquals(400, controller.listEvents("Bearer pb", null, null, null, null, 100_000).getStatusCode().value());
+        assertEquals(400, controller.listEvents("Bearer pb", null, null, null, "%%%", 10).getStatusCode().value());
+    }
+
     @Test
     void listEvents_unauthorizedToken_returns401() {
         tokenService.setThrow("Bearer bad","bad token");
-        ResponseEntity<?> resp = controller.listEvents("Bearer bad", null);
+        ResponseEntity<?> resp = controller.listEvents("Bearer bad", null, null, null, null, null);
         assertEquals(401, resp.getStatusCode().value());
     }
 
@@ -155,7 +187,7 @@ class EventControllerExtraTest {
     void pollEvents_missingToken_returns401() {
         // no token -> TokenService will throw
         tokenService.setThrow(null, "no token");
-        ResponseEntity<?> resp = controller.pollEvents(null);
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.pollEvents(null, null, null, null).getResult();
         assertEquals(401, resp.getStatusCode().value());
     }
 
@@ -166,7 +198,7 @@ class EventControllerExtraTest {
         when(eventValidator.validate(any())).thenReturn(java.util.Set.of());
 
         Map<String,Object> body = Map.of("type","t");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer z", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer z", json(body));
         assertEquals(403, resp.getStatusCode().value());
     }
 
@@ -201,4 +233,8 @@ class EventControllerExtraTest {
         assertEquals(201, resp.getStatusCode().value());
         verify(coreApiClient, times(1)).forwardAckToCore(any());
     }
+
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
 }
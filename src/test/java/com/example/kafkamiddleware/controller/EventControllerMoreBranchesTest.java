@@ -1,5 +1,6 @@
 package com.example.kafkamiddleware.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.service.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -54,7 +55,7 @@ class EventControllerMoreBranchesTest {
         controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, new ModuleMessageStore(), new ObjectMapper(), mock(CoreApiClient.class), originMapper, mock(AckService.class));
 
         Map<String,Object> body = Map.of("type","evt","timestamp", String.valueOf(nowMillis));
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer tnum", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer tnum", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -76,7 +77,7 @@ class EventControllerMoreBranchesTest {
         controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, new ModuleMessageStore(), new ObjectMapper(), mock(CoreApiClient.class), originMapper, mock(AckService.class));
 
         Map<String,Object> body = Map.of("type","evt","timestamp", iso);
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer tiso", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer tiso", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -99,7 +100,7 @@ class EventControllerMoreBranchesTest {
         List<Integer> shortList = List.of(2020,1);
         Instant before = Instant.now();
         Map<String,Object> body = Map.of("type","evt","timestamp", shortList);
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer tlist", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer tlist", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -118,7 +119,7 @@ class EventControllerMoreBranchesTest {
         when(eventValidator.validate(any())).thenReturn(java.util.Set.of());
 
         Map<String,Object> body = Map.of("type"," ");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer bt", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer bt", json(body));
         assertEquals(400, resp.getStatusCode().value());
     }
 
@@ -128,7 +129,7 @@ class EventControllerMoreBranchesTest {
         when(moduleRegistry.isAuthorizedModule("mp")).thenReturn(false);
         when(eventValidator.validate(any())).thenReturn(java.util.Set.of());
 
-        ResponseEntity<?> resp = controller.pollEvents("Bearer p");
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.pollEvents("Bearer p", null, null, null).getResult();
         assertEquals(403, resp.getStatusCode().value());
     }
 
@@ -182,7 +183,7 @@ class EventControllerMoreBranchesTest {
         when(eventValidator.validate(any())).thenReturn(java.util.Set.of("err"));
 
         Map<String,Object> body = Map.of("type","t");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer ve", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer ve", json(body));
         assertEquals(400, resp.getStatusCode().value());
     }
 
@@ -281,7 +282,7 @@ class EventControllerMoreBranchesTest {
         List<Object> payload = List.of(Map.of("a",1), Map.of("b",2));
         // envolver la lista dentro de un Map para que ObjectMapper.convertValue pueda convertir a Map sin error
         Map<String,Object> body = Map.of("type","t","payload", Map.of("items", payload));
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer pl", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer pl", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -303,7 +304,7 @@ class EventControllerMoreBranchesTest {
 
         // envolver el número dentro de un Map para evitar la excepción de deserialización
         Map<String,Object> body = Map.of("type","t","payload", Map.of("value", 12345));
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer pn", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer pn", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -328,7 +329,7 @@ class EventControllerMoreBranchesTest {
         Instant expected = ldt.toInstant(ZoneOffset.UTC);
 
         Map<String,Object> body = Map.of("type","t","timestamp", ts);
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer t7", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer t7", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -339,4 +340,7 @@ class EventControllerMoreBranchesTest {
         assertEquals(expected, e.getTimestamp());
     }
 
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.kafkamiddleware.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.service.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -41,7 +42,7 @@ class EventControllerPayloadsTest {
         EventController controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, moduleMessageStore, new ObjectMapper(), coreApiClient, originMapper, ackService);
 
         Map<String,Object> body = Map.of("type","t","payload","{\"a\":2}");
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer s", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer s", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -74,7 +75,7 @@ class EventControllerPayloadsTest {
 
         List<Integer> ts = List.of(2020,1,2,3,4,5);
         Map<String,Object> body = Map.of("type","t","timestamp", ts);
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer t", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer t", json(body));
         assertEquals(202, resp.getStatusCode().value());
         assertInstanceOf(Map.class, resp.getBody());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
@@ -90,4 +91,8 @@ class EventControllerPayloadsTest {
         public void setResponse(String b, String c) { map.put(b,c); }
         @Override public String validateAndExtractClientId(String bearerToken) throws TokenValidationException { if (map.containsKey(bearerToken)) return (String)map.get(bearerToken); throw new TokenValidationException("no"); }
     }
+
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
 }
@@ -0,0 +1,188 @@
+package com.example.kafkamiddleware.controller;
+
+import com.example.kafkamiddleware.dto.EventDto;
+import com.example.kafkamiddleware.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventControllerPollTest {
+
+    static class TestTokenService extends TokenService {
+        private final java.util.Map<String,Object> map = new java.util.HashMap<>();
+        public void setResponse(String b, String c) { map.put(b,c); }
+        @Override public String validateAndExtractClientId(String bearerToken) throws TokenValidationException { if (map.containsKey(bearerToken)) return (String) map.get(bearerToken); throw new TokenService.TokenValidationException("no token"); }
+    }
+
+    private ModuleMessageStore moduleMessageStore;
+    private AckService ackService;
+    private EventController controller;
+
+    @BeforeEach
+    void setUp() {
+        TestTokenService tokenService = new TestTokenService();
+        tokenService.setResponse("Bearer m", "modM");
+        tokenService.setResponse("Bearer x", "modX");
+        ModuleRegistry moduleRegistry = mock(ModuleRegistry.class);
+        when(moduleRegistry.isAuthorizedModule("modM")).thenReturn(true);
+        moduleMessageStore = new ModuleMessageStore();
+        ackService = mock(AckService.class);
+        controller = new EventController(tokenService, moduleRegistry, mock(EventValidator.class), new EventStore(), moduleMessageStore,
+                new ObjectMapper(), mock(CoreApiClient.class), mock(OriginMapper.class), ackService);
+    }
+
+    private static EventDto msg(String type) {
+        return new EventDto(type, Map.of(), Instant.parse("2025-01-01T00:00:00Z"), "Core");
+    }
+
+    @Test
+    void pollEvents_withWait_completesWhenMessageArrives() {
+        DeferredResult<ResponseEntity<?>> result = controller.pollEvents("Bearer m", 10, null, null);
+        assertFalse(result.hasResult());
+
+        moduleMessageStore.addMessageForModule("modX", msg("otro-modulo"));
+        assertFalse(result.hasResult());
+
+        moduleMessageStore.addMessageForModule("modM", msg("t1"));
+        assertTrue(result.hasResult());
+        ResponseEntity<?> resp = (ResponseEntity<?>) result.getResult();
+        assertEquals(200, resp.getStatusCode().value());
+        assertEquals(1, ((List<?>) resp.getBody()).size());
+
+        // el aviso se da de baja al completar: el siguiente mensaje queda en la cola
+        moduleMessageStore.addMessageForModule("modM", msg("t2"));
+        assertEquals(1, moduleMessageStore.pollMessagesForModule("modM").size());
+    }
+
+    @Test
+    void pollEvents_withMax_drainsAtMostMaxMessages() {
+        for (int i = 0; i < 5; i++) moduleMessageStore.addMessageForModule("modM", msg("t" + i));
+
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.pollEvents("Bearer m", 10, 2, null).getResult();
+        assertEquals(2, ((List<?>) resp.getBody()).size());
+        assertEquals(3, moduleMessageStore.pollMessagesForModule("modM").size());
+    }
+
+    @Test
+    void pollEvents_invalidParamsOrForbidden_completeImmediately() {
+        assertEquals(400, ((ResponseEntity<?>) controller.pollEvents("Bearer m", -1, null, null).getResult()).getStatusCode().value());
+        assertEquals(400, ((ResponseEntity<?>) controller.pollEvents("Bearer m", null, 0, null).getResult()).getStatusCode().value());
+        assertEquals(403, ((ResponseEntity<?>) controller.pollEvents("Bearer x", 10, null, null).getResult()).getStatusCode().value());
+    }
+
+    @Test
+    void pollEvents_longPollOverHttp_returnsMessageEnqueuedWhileWaiting() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        MvcResult pending = mvc.perform(get("/events/poll").param("wait", "10").header("Authorization", "Bearer m"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        moduleMessageStore.addMessageForModule("modM", msg("llego"));
+
+        String body = mvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(body.contains("\"type\":\"llego\""), body);
+    }
+
+    @Test
+    void streamEvents_pushesQueuedAndNewMessagesAsServerSentEvents() throws Exception {
+        moduleMessageStore.addMessageForModule("modM", msg("previo"));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        MvcResult result = mvc.perform(get("/events/poll/stream").header("Authorization", "Bearer m"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        moduleMessageStore.addMessageForModule("modM", msg("nuevo"));
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:event"), body);
+        assertTrue(body.contains("\"type\":\"previo\""), body);
+        assertTrue(body.indexOf("\"type\":\"previo\"") < body.indexOf("\"type\":\"nuevo\""), body);
+        assertTrue(moduleMessageStore.pollMessagesForModule("modM").isEmpty());
+    }
+
+    @Test
+    void streamEvents_forbiddenModule_returns403() {
+        assertEquals(403, controller.streamEvents("Bearer x", null).getStatusCode().value());
+        assertEquals(401, controller.streamEvents("Bearer nope", null).getStatusCode().value());
+    }
+
+    private ModuleDeliveryLog enableDeliveryLog() throws Exception {
+        ModuleDeliveryLog deliveryLog = mock(ModuleDeliveryLog.class);
+        when(deliveryLog.isEnabled()).thenReturn(true);
+        java.lang.reflect.Field f = EventController.class.getDeclaredField("moduleDeliveryLog");
+        f.setAccessible(true);
+        f.set(controller, deliveryLog);
+        return deliveryLog;
+    }
+
+    @Test
+    void pollEvents_withDeliveryLog_readsFromCommittedOffsetByDefault() throws Exception {
+        ModuleDeliveryLog deliveryLog = enableDeliveryLog();
+        ModuleFeed feed = mock(ModuleFeed.class);
+        List<ModuleDeliveryLog.Entry> entries = List.of(new ModuleDeliveryLog.Entry(5, null, "{\"type\":\"t\"}"));
+        doReturn(entries).when(feed).next(anyInt());
+        when(deliveryLog.committedOffset("modM")).thenReturn(4L);
+        when(deliveryLog.feed("modM", 4L)).thenReturn(feed);
+
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.pollEvents("Bearer m", null, null, null).getResult();
+        assertEquals(entries, resp.getBody());
+
+        when(deliveryLog.feed("modM", 1L)).thenReturn(feed);
+        controller.pollEvents("Bearer m", null, 10, 1L);
+        verify(deliveryLog).feed("modM", 1L);
+    }
+
+    @Test
+    void acknowledgeEvent_withOffset_commitsDeliveryLogOffset() throws Exception {
+        ModuleDeliveryLog deliveryLog = enableDeliveryLog();
+        when(deliveryLog.commit("modM", 7L)).thenReturn(7L);
+        when(deliveryLog.endOffset("modM")).thenReturn(7L);
+        com.example.kafkamiddleware.persistence.EventAckEntity ent = new com.example.kafkamiddleware.persistence.EventAckEntity();
+        ent.setEventId(java.util.UUID.randomUUID().toString());
+        ent.setConsumer("Core");
+        ent.setStatus("CONSUMED");
+        ent.setAttempts(1);
+        ent.setFirstSeenAt(Instant.now());
+        ent.setLastSeenAt(Instant.now());
+        when(ackService.ack(any(), any(), any())).thenReturn(new AckService.AckResult(ent, true));
+
+        ResponseEntity<?> resp = controller.acknowledgeEvent("Bearer m", ent.getEventId(), Map.of("offset", 7));
+
+        assertEquals(201, resp.getStatusCode().value());
+        assertEquals(7L, ((Map<?, ?>) resp.getBody()).get("committedOffset"));
+        verify(deliveryLog).commit("modM", 7L);
+
+        assertEquals(400, controller.acknowledgeEvent("Bearer m", ent.getEventId(), Map.of("offset", "abc")).getStatusCode().value());
+    }
+
+    @Test
+    void acknowledgeEvent_offsetBeyondEndOfLog_returns400WithoutCommitting() throws Exception {
+        ModuleDeliveryLog deliveryLog = enableDeliveryLog();
+        when(deliveryLog.endOffset("modM")).thenReturn(5L);
+
+        ResponseEntity<?> resp = controller.acknowledgeEvent("Bearer m", java.util.UUID.randomUUID().toString(), Map.of("offset", 6));
+
+        assertEquals(400, resp.getStatusCode().value());
+        assertEquals(5L, ((Map<?, ?>) resp.getBody()).get("endOffset"));
+        verify(deliveryLog, never()).commit(any(), anyLong());
+        verifyNoInteractions(ackService);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.kafkamiddleware.controller;
+
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventControllerStreamTest {
+
+    static class TestTokenService extends TokenService {
+        private final java.util.Map<String,Object> map = new java.util.HashMap<>();
+        public void setResponse(String b, String c) { map.put(b,c); }
+        @Override public String validateAndExtractClientId(String bearerToken) throws TokenValidationException { if (map.containsKey(bearerToken)) return (String) map.get(bearerToken); throw new TokenService.TokenValidationException("no token"); }
+    }
+
+    private TestTokenService tokenService;
+    private EventValidator eventValidator;
+    private EventStore eventStore;
+    private CoreApiClient coreApiClient;
+    private EventController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tokenService = new TestTokenService();
+        tokenService.setResponse("Bearer ok", "inventory-service");
+        ModuleRegistry moduleRegistry = mock(ModuleRegistry.class);
+        when(moduleRegistry.isAuthorizedModule("inventory-service")).thenReturn(true);
+        eventValidator = new EventValidator(new ObjectMapper());
+        eventValidator.init();
+        EventStore memory = new EventStore();
+        java.lang.reflect.Field f = EventStore.class.getDeclaredField("storageType"); f.setAccessible(true); f.set(memory, "MEMORY");
+        eventStore = spy(memory);
+        coreApiClient = mock(CoreApiClient.class);
+        OriginMapper originMapper = mock(OriginMapper.class);
+        when(originMapper.map("inventory-service")).thenReturn("Inventario");
+        controller = new EventController(tokenService, moduleRegistry, eventValidator, eventStore, new ModuleMessageStore(), new ObjectMapper(), coreApiClient, originMapper, mock(AckService.class));
+        java.lang.reflect.Field chunk = EventController.class.getDeclaredField("streamChunkSize"); chunk.setAccessible(true); chunk.set(controller, 2);
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(ResponseEntity<?> resp) {
+        return (Map<String, Object>) resp.getBody();
+    }
+
+    @Test
+    void receiveEventStream_mixedLines_savesInChunksAndReportsPerLineErrors() {
+        ResponseEntity<?> resp = controller.receiveEventStream("Bearer ok", ndjson(
+                "{\"type\":\"stock\",\"payload\":{\"sku\":1},\"timestamp\":1700000000000}",
+                "{\"payload\":{\"sku\":2}}",
+                "{\"type\":\"stock\",\"payload\":{\"sku\":3},\"timestamp\":1700000000000}",
+                "[1,2]",
+                "{\"type\":\"stock\",\"payload\":{\"sku\":1},\"timestamp\":1700000000000}",
+                "{\"type\":\"stock\",\"payload\":{\"sku\":4},\"timestamp\":1700000000000}"));
+
+        assertEquals(202, resp.getStatusCode().value());
+        Map<String, Object> out = body(resp);
+        assertEquals("received", out.get("status"));
+        assertEquals(6L, out.get("lines"));
+        assertEquals(3L, out.get("accepted"));
+        assertEquals(1L, out.get("duplicates"));
+        assertEquals(2L, out.get("invalid"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) out.get("errors");
+        assertEquals(2L, errors.get(0).get("line"));
+        assertEquals("schema_validation_failed", errors.get(0).get("error"));
+        assertEquals(4L, errors.get(1).get("line"));
+
+        // 4 eventos válidos con chunk-size=2 -> dos saveAll
+        verify(eventStore, times(2)).saveAll(anyList());
+        assertEquals(3, eventStore.listAll().size());
+        // los 3 nuevos + el duplicado de sku=1 (otro chunk), como en /batch
+        verify(coreApiClient, times(4)).forwardAsync(any(Event.class), eq("Inventario"));
+    }
+
+    @Test
+    void receiveEventStream_duplicatesInSameChunk_areForwardedOncePerId() {
+        ResponseEntity<?> resp = controller.receiveEventStream("Bearer ok", ndjson(
+                "{\"type\":\"stock\",\"payload\":{\"sku\":1},\"timestamp\":1700000000000}",
+                "{\"type\":\"stock\",\"payload\":{\"sku\":1},\"timestamp\":1700000000000}"));
+
+        Map<String, Object> out = body(resp);
+        assertEquals(1L, out.get("accepted"));
+        assertEquals(1L, out.get("duplicates"));
+        verify(coreApiClient, times(1)).forwardAsync(any(Event.class), eq("Inventario"));
+    }
+
+    @Test
+    void receiveEventStream_malformedLine_abortsKeepingEarlierEvents() {
+        ResponseEntity<?> resp = controller.receiveEventStream("Bearer ok", ndjson(
+                "{\"type\":\"stock\",\"payload\":{\"sku\":1}}",
+                "{\"type\":\"stock\",\"payload\":{\"sku\":2}}",
+                "{\"type\":\"stock\",\"payload\":{\"sku\":3}}",
+                "{\"type\": oops}"));
+
+        assertEquals(202, resp.getStatusCode().value());
+        Map<String, Object> out = body(resp);
+        assertEquals("aborted", out.get("status"));
+        assertEquals(3L, out.get("accepted"));
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) out.get("errors");
+        assertEquals("malformed_json", errors.get(0).get("error"));
+        assertEquals(4L, errors.get(0).get("line"));
+    }
+
+    @Test
+    void receiveEventStream_invalidToken_returns401WithoutReadingBody() {
+        InputStream in = mock(InputStream.class);
+        ResponseEntity<?> resp = controller.receiveEventStream("Bearer bad", in);
+        assertEquals(401, resp.getStatusCode().value());
+        verifyNoInteractions(in, coreApiClient);
+    }
+
+    @Test
+    void receiveEventStream_largeUpload_isConsumedIncrementally() {
+        int total = 5_000;
+        // Genera las líneas a medida que se leen: el body completo nunca existe en memoria
+        Iterator<InputStream> lines = new Iterator<>() {
+            int i = 0;
+            public boolean hasNext() { return i < total; }
+            public InputStream next() {
+                String line = "{\"type\":\"stock\",\"payload\":{\"sku\":" + (i++) + "},\"timestamp\":1700000000000}\n";
+                return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        InputStream stream = new SequenceInputStream(new Enumeration<>() {
+            public boolean hasMoreElements() { return lines.hasNext(); }
+            public InputStream nextElement() { return lines.next(); }
+        });
+
+        ResponseEntity<?> resp = controller.receiveEventStream("Bearer ok", stream);
+
+        assertEquals((long) total, body(resp).get("accepted"));
+        verify(eventStore, times(total / 2)).saveAll(anyList());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.kafkamiddleware.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.dto.EventStatus;
 import com.example.kafkamiddleware.service.*;
@@ -92,7 +93,7 @@ class EventControllerTest {
         when(moduleRegistry.isAuthorizedModule("modX")).thenReturn(true);
         when(originMapper.map("modX")).thenReturn("Ventas");
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer abc", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer abc", json(body));
         assertEquals(202, resp.getStatusCode().value());
         Map<?,?> bodyResp = (Map<?,?>) resp.getBody();
         assertNotNull(bodyResp);
@@ -109,12 +110,29 @@ class EventControllerTest {
         verify(coreApiClient, times(1)).forwardAsync(any(Event.class), eq("Ventas"));
     }
 
+    @Test
+    void receiveEvent_objectPayload_validatesAndStoresParsedTreeWithoutMapConversion() throws Exception {
+        JsonNode body = new ObjectMapper().readTree("{\"type\":\"evt-type\",\"payload\":{\"a\":1,\"b\":[1,2]}}");
+        when(eventValidator.validate(any())).thenReturn(java.util.Set.of());
+        ((TestTokenService) tokenService).setResponse("Bearer tree", "modX");
+        when(moduleRegistry.isAuthorizedModule("modX")).thenReturn(true);
+
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer tree", body);
+
+        assertEquals(202, resp.getStatusCode().value());
+        verify(eventValidator).validate(same(body));
+        Event found = eventStore.findById((String) ((Map<?, ?>) resp.getBody()).get("eventId"));
+        assertSame(body.get("payload"), found.getPayloadNode());
+        // El Map solo se materializa al pedirlo
+        assertEquals(1, found.getPayload().get("a"));
+    }
+
     @Test
     void receiveEvent_schemaInvalid_returnsBadRequest() {
         Map<String, Object> body = Map.of("payload", Map.of("a",1));
         when(eventValidator.validate(any())).thenReturn(java.util.Set.of("error"));
 
-        ResponseEntity<?> resp = controller.receiveEvent(null, body);
+        ResponseEntity<?> resp = controller.receiveEvent(null, json(body));
         assertEquals(400, resp.getStatusCode().value());
     }
 
@@ -124,7 +142,7 @@ class EventControllerTest {
         when(eventValidator.validate(any())).thenReturn(java.util.Set.of());
         ((TestTokenService) tokenService).setThrow(null, "Authorization token missing");
 
-        ResponseEntity<?> resp = controller.receiveEvent(null, body);
+        ResponseEntity<?> resp = controller.receiveEvent(null, json(body));
         assertEquals(401, resp.getStatusCode().value());
     }
 
@@ -136,7 +154,7 @@ class EventControllerTest {
         com.example.kafkamiddleware.dto.EventDto dto = new com.example.kafkamiddleware.dto.EventDto("t1", Map.of("x",1), Instant.now(), "modP");
         moduleMessageStore.addMessageForModule("modP", dto);
 
-        ResponseEntity<?> resp = controller.pollEvents("Bearer tok");
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.pollEvents("Bearer tok", null, null, null).getResult();
         assertEquals(200, resp.getStatusCode().value());
         assertInstanceOf(List.class, resp.getBody());
         List<?> msgList = (List<?>) resp.getBody();
@@ -153,7 +171,7 @@ class EventControllerTest {
         eventStore.save(e1);
         eventStore.save(e2);
 
-        ResponseEntity<?> resp = controller.listEvents("Bearer tok2", "delivered");
+        ResponseEntity<?> resp = controller.listEvents("Bearer tok2", "delivered", null, null, null, null);
         assertEquals(200, resp.getStatusCode().value());
         assertInstanceOf(List.class, resp.getBody());
         List<?> list = (List<?>) resp.getBody();
@@ -216,7 +234,7 @@ class EventControllerTest {
         ((TestTokenService) tokenService).setResponse("Bearer tok3", "modL");
         when(moduleRegistry.isAuthorizedModule("modL")).thenReturn(true);
 
-        ResponseEntity<?> resp = controller.listEvents("Bearer tok3", "notastatus");
+        ResponseEntity<?> resp = controller.listEvents("Bearer tok3", "notastatus", null, null, null, null);
         assertEquals(400, resp.getStatusCode().value());
     }
 
@@ -225,7 +243,7 @@ class EventControllerTest {
         ((TestTokenService) tokenService).setResponse("Bearer bad", "modX");
         when(moduleRegistry.isAuthorizedModule("modX")).thenReturn(false);
 
-        ResponseEntity<?> resp = controller.pollEvents("Bearer bad");
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.pollEvents("Bearer bad", null, null, null).getResult();
         assertEquals(403, resp.getStatusCode().value());
     }
 
@@ -247,7 +265,7 @@ class EventControllerTest {
         when(moduleRegistry.isAuthorizedModule("modJ")).thenReturn(true);
         when(originMapper.map("modJ")).thenReturn("Inventario");
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer json", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer json", json(body));
         assertEquals(202, resp.getStatusCode().value());
         String id = (String) ((Map<?,?>) resp.getBody()).get("eventId");
         Event found = eventStore.findById(id);
@@ -264,7 +282,7 @@ class EventControllerTest {
         when(moduleRegistry.isAuthorizedModule("modS")).thenReturn(true);
         when(originMapper.map("modS")).thenReturn("Ventas");
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer str", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer str", json(body));
         assertEquals(202, resp.getStatusCode().value());
         String id = (String) ((Map<?,?>) resp.getBody()).get("eventId");
         Event found = eventStore.findById(id);
@@ -279,7 +297,7 @@ class EventControllerTest {
         ((TestTokenService) tokenService).setResponse("Bearer abc", "modX");
         when(moduleRegistry.isAuthorizedModule("modX")).thenReturn(true);
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer abc", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer abc", json(body));
         assertEquals(202, resp.getStatusCode().value());
         String id = (String) ((Map<?,?>) resp.getBody()).get("eventId");
         Event found = eventStore.findById(id);
@@ -295,7 +313,7 @@ class EventControllerTest {
         ((TestTokenService) tokenService).setResponse("Bearer ts", "modT");
         when(moduleRegistry.isAuthorizedModule("modT")).thenReturn(true);
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer ts", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer ts", json(body));
         assertEquals(202, resp.getStatusCode().value());
         String id = (String) ((Map<?,?>) resp.getBody()).get("eventId");
         Event found = eventStore.findById(id);
@@ -311,7 +329,7 @@ class EventControllerTest {
         ((TestTokenService) tokenService).setResponse("Bearer ts-list", "modT");
         when(moduleRegistry.isAuthorizedModule("modT")).thenReturn(true);
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer ts-list", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer ts-list", json(body));
         assertEquals(202, resp.getStatusCode().value());
         String id = (String) ((Map<?,?>) resp.getBody()).get("eventId");
         Event found = eventStore.findById(id);
@@ -327,7 +345,7 @@ class EventControllerTest {
         eventStore.save(new Event("t1", Map.of(), Instant.now(), "modL", EventStatus.RECEIVED));
         eventStore.save(new Event("t2", Map.of(), Instant.now(), "modL", EventStatus.DELIVERED));
 
-        ResponseEntity<?> resp = controller.listEvents("Bearer listall", null);
+        ResponseEntity<?> resp = controller.listEvents("Bearer listall", null, null, null, null, null);
         assertEquals(200, resp.getStatusCode().value());
         assertInstanceOf(List.class, resp.getBody());
         assertEquals(2, ((List<?>) resp.getBody()).size());
@@ -389,7 +407,7 @@ class EventControllerTest {
         ((TestTokenService) tokenService).setResponse("Bearer null-pl", "modN");
         when(moduleRegistry.isAuthorizedModule("modN")).thenReturn(true);
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer null-pl", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer null-pl", json(body));
         assertEquals(202, resp.getStatusCode().value());
         String id = (String) ((Map<?,?>) resp.getBody()).get("eventId");
         Event found = eventStore.findById(id);
@@ -404,7 +422,7 @@ class EventControllerTest {
         ((TestTokenService) tokenService).setResponse("Bearer no-type", "modNT");
         when(moduleRegistry.isAuthorizedModule("modNT")).thenReturn(true);
 
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer no-type", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer no-type", json(body));
         assertEquals(400, resp.getStatusCode().value());
         Map<?,?> respBody = (Map<?,?>) resp.getBody();
         assertEquals("type is required", respBody.get("error"));
@@ -419,7 +437,7 @@ class EventControllerTest {
 
         // Freeze time for consistent test results
         Instant before = Instant.now();
-        ResponseEntity<?> resp = controller.receiveEvent("Bearer bad-ts", body);
+        ResponseEntity<?> resp = controller.receiveEvent("Bearer bad-ts", json(body));
         Instant after = Instant.now();
 
         assertEquals(202, resp.getStatusCode().value());
@@ -447,4 +465,7 @@ class EventControllerTest {
         verify(ackService).ack(eventId, "Ventas", null);
     }
 
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.kafkamiddleware.dto;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
@@ -52,4 +54,54 @@ class EventTest {
         assertEquals("test-module", event.getOriginModule());
         assertEquals(EventStatus.DELIVERED, event.getStatus());
     }
+
+    @Test
+    void storedPayloadJson_isWrittenRawAndParsedOnlyOnDemand() throws Exception {
+        Event event = new Event();
+        event.setType("t");
+        event.setPayloadJson("{\"sku\":\"A-1\",\"qty\":3}");
+
+        String json = new ObjectMapper().writeValueAsString(event);
+        JsonNode tree = new ObjectMapper().readTree(json);
+        assertEquals("A-1", tree.get("payload").get("sku").asText());
+        assertEquals(3, tree.get("payload").get("qty").asInt());
+        assertFalse(tree.has("payloadJson"));
+
+        assertEquals(Map.of("sku", "A-1", "qty", 3), event.getPayload());
+    }
+
+    @Test
+    void storedPayloadJson_notAnObject_fallsBackToRawEntry() throws Exception {
+        Event event = new Event();
+        event.setPayloadJson("not-a-json");
+
+        JsonNode tree = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(event));
+        assertEquals("not-a-json", tree.get("payload").get("raw").asText());
+    }
+
+    @Test
+    void storedPayloadJson_startsWithBraceButInvalid_fallsBackToRawEntry() throws Exception {
+        Event event = new Event();
+        event.setPayloadJson("{k=v}");
+
+        JsonNode tree = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(event));
+        assertEquals("{k=v}", tree.get("payload").get("raw").asText());
+    }
+
+    @Test
+    void storedPayloadJson_replacedByMap_isNotWrittenRaw() throws Exception {
+        Event event = new Event();
+        event.setPayloadJson("{\"a\":1}");
+        event.setPayload(null);
+
+        JsonNode tree = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(event));
+        assertFalse(tree.has("payload"));
+    }
+
+    @Test
+    void deserialize_readsPayloadIntoMap() throws Exception {
+        Event event = new ObjectMapper().readValue("{\"type\":\"t\",\"payload\":{\"k\":1}}", Event.class);
+        assertEquals(Map.of("k", 1), event.getPayload());
+        assertNull(event.getPayloadJson());
+    }
 }
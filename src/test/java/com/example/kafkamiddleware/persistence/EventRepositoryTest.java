@@ -3,6 +3,7 @@ package com.example.kafkamiddleware.persistence;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.Instant;
 import java.util.List;
@@ -58,4 +59,37 @@ class EventRepositoryTest {
         List<EventEntity> delivered = repository.findByStatus("DELIVERED");
         assertEquals(2, delivered.size());
     }
+
+    @Test
+    void findDueForDelivery_returnsOnlyDueReceivedOrderedByNextAttempt() {
+        Instant now = Instant.now();
+        EventEntity later = createAndSaveEvent("RECEIVED", "sig-due-1");
+        later.setNextAttemptAt(now.minusSeconds(10));
+        EventEntity earlier = createAndSaveEvent("RECEIVED", "sig-due-2");
+        earlier.setNextAttemptAt(now.minusSeconds(60));
+        EventEntity future = createAndSaveEvent("RECEIVED", "sig-due-3");
+        future.setNextAttemptAt(now.plusSeconds(60));
+        EventEntity delivered = createAndSaveEvent("DELIVERED", "sig-due-4");
+        delivered.setNextAttemptAt(now.minusSeconds(60));
+        repository.saveAll(List.of(later, earlier, future, delivered));
+
+        List<EventEntity> due = repository.findDueForDelivery("RECEIVED", now, PageRequest.of(0, 10)).getContent();
+
+        assertEquals(List.of(earlier.getId(), later.getId()), due.stream().map(EventEntity::getId).toList());
+        assertEquals(1, repository.findDueForDelivery("RECEIVED", now, PageRequest.of(0, 1)).getContent().size());
+    }
+
+    @Test
+    void updateStatusByIdIn_updatesOnlyGivenIds() {
+        EventEntity a = createAndSaveEvent("RECEIVED", "sig-bulk-1");
+        EventEntity b = createAndSaveEvent("RECEIVED", "sig-bulk-2");
+        EventEntity c = createAndSaveEvent("RECEIVED", "sig-bulk-3");
+
+        int updated = repository.updateStatusByIdIn(List.of(a.getId(), b.getId()), "DELIVERED");
+
+        assertEquals(2, updated);
+        assertEquals("DELIVERED", repository.findById(a.getId()).orElseThrow().getStatus());
+        assertEquals("DELIVERED", repository.findById(b.getId()).orElseThrow().getStatus());
+        assertEquals("RECEIVED", repository.findById(c.getId()).orElseThrow().getStatus());
+    }
 }
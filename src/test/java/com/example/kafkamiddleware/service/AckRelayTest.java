@@ -0,0 +1,141 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.persistence.EventAckEntity;
+import com.example.kafkamiddleware.persistence.EventAckRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Sin transacción de test: el relay corre en su propio hilo y lee lo commiteado
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AckRelayTest {
+
+    @Autowired
+    EventAckRepository repository;
+
+    private CoreApiClient coreApiClient;
+    private AckService ackService;
+    private AckRelay relay;
+    private final String consumer = "relay-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        coreApiClient = mock(CoreApiClient.class);
+        when(coreApiClient.isForwardEnabled()).thenReturn(true);
+        ackService = new AckService(repository, mock(EventStore.class));
+        java.lang.reflect.Field relayEnabled = AckService.class.getDeclaredField("relayEnabled");
+        relayEnabled.setAccessible(true);
+        relayEnabled.set(ackService, true);
+        relay = new AckRelay(repository, coreApiClient, new DeliveryRetryPolicy());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        relay.shutdown();
+    }
+
+    private EventAckEntity row(String eventId) {
+        return repository.findByEventIdAndConsumer(eventId, consumer).orElseThrow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Object> sentEventIds(ArgumentCaptor<List<Map<String, Object>>> captor) {
+        return captor.getAllValues().stream().flatMap(List::stream).map(m -> m.get("eventId")).collect(Collectors.toSet());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayDue_sendsPendingAcksTogetherAndClearsThemOnConfirmation() {
+        String e1 = UUID.randomUUID().toString();
+        String e2 = UUID.randomUUID().toString();
+        ackService.ack(e1, consumer, null);
+        ackService.ack(e2, consumer, null);
+        ackService.ack(e2, consumer, null);
+        assertNotNull(row(e1).getNextRelayAt());
+        when(coreApiClient.forwardAcksToCore(any())).thenReturn(true);
+
+        relay.relayDue();
+
+        ArgumentCaptor<List<Map<String, Object>>> sent = ArgumentCaptor.forClass(List.class);
+        verify(coreApiClient, atLeastOnce()).forwardAcksToCore(sent.capture());
+        assertTrue(sentEventIds(sent).containsAll(Set.of(e1, e2)));
+        // el ACK repetido de e2 viaja una sola vez, con el último estado
+        Map<String, Object> ack2 = sent.getAllValues().stream().flatMap(List::stream).filter(m -> e2.equals(m.get("eventId"))).findFirst().orElseThrow();
+        assertEquals(2, ack2.get("attempts"));
+        assertNull(row(e1).getNextRelayAt());
+        assertNull(row(e2).getNextRelayAt());
+    }
+
+    @Test
+    void relayDue_whenCoreFails_keepsAcksPendingWithBackoff() {
+        String e1 = UUID.randomUUID().toString();
+        ackService.ack(e1, consumer, null);
+        when(coreApiClient.forwardAcksToCore(any())).thenReturn(false);
+
+        Instant before = Instant.now();
+        relay.relayDue();
+
+        EventAckEntity pending = row(e1);
+        assertEquals(1, pending.getRelayAttempts());
+        assertTrue(pending.getNextRelayAt().isAfter(before));
+
+        // vencido el backoff y con Core de vuelta, se confirma
+        pending.setNextRelayAt(Instant.now().minusSeconds(1));
+        repository.save(pending);
+        when(coreApiClient.forwardAcksToCore(any())).thenReturn(true);
+        relay.relayDue();
+        assertNull(row(e1).getNextRelayAt());
+        assertEquals(0, row(e1).getRelayAttempts());
+    }
+
+    @Test
+    void relayDue_ackArrivingWhileSending_staysPending() {
+        String e1 = UUID.randomUUID().toString();
+        ackService.ack(e1, consumer, null);
+        when(coreApiClient.forwardAcksToCore(any())).thenAnswer(inv -> {
+            // ACK repetido mientras el lote está en vuelo
+            ackService.ack(e1, consumer, null);
+            return true;
+        });
+
+        relay.relayDue();
+
+        assertNotNull(row(e1).getNextRelayAt());
+        assertEquals(2, row(e1).getAttempts());
+    }
+
+    @Test
+    void wakeUp_relaysInBackgroundThread() throws Exception {
+        java.lang.reflect.Field f = AckRelay.class.getDeclaredField("enabled");
+        f.setAccessible(true);
+        f.set(relay, true);
+        when(coreApiClient.forwardAcksToCore(any())).thenReturn(true);
+        relay.init();
+
+        String e1 = UUID.randomUUID().toString();
+        ackService.ack(e1, consumer, null);
+        relay.wakeUp();
+
+        verify(coreApiClient, timeout(2000).atLeastOnce()).forwardAcksToCore(any());
+        long deadline = System.currentTimeMillis() + 2000;
+        while (row(e1).getNextRelayAt() != null && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertNull(row(e1).getNextRelayAt());
+    }
+}
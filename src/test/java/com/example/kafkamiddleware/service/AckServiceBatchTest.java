@@ -0,0 +1,121 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.persistence.EventAckEntity;
+import com.example.kafkamiddleware.persistence.EventAckRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Sin transacción de test: el upsert nativo hace commit y el test lee lo confirmado
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AckServiceBatchTest {
+
+    @Autowired
+    EventAckRepository repository;
+
+    private AckService newService(boolean nativeUpsert) {
+        return newService(nativeUpsert, true);
+    }
+
+    private AckService newService(boolean nativeUpsert, boolean relayEnabled) {
+        EventAckRepository repo = repository;
+        if (!nativeUpsert) {
+            // mismo repositorio, pero como si el motor no tuviera upsert nativo
+            repo = mock(EventAckRepository.class, AdditionalAnswers.delegatesTo(repository));
+            doReturn(false).when(repo).supportsUpsert();
+        }
+        AckService service = new AckService(repo, mock(EventStore.class));
+        try {
+            java.lang.reflect.Field f = AckService.class.getDeclaredField("relayEnabled");
+            f.setAccessible(true);
+            f.set(service, relayEnabled);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return service;
+    }
+
+    private static String consumer() {
+        return "c-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Test
+    void ackBatch_onH2_insertsNewAndIncrementsExistingWithMerge() {
+        AckService service = newService(true);
+        String consumer = consumer();
+        String e1 = UUID.randomUUID().toString();
+        String e2 = UUID.randomUUID().toString();
+        Instant t1 = Instant.parse("2025-01-01T10:00:00Z");
+        Instant t2 = Instant.parse("2025-01-01T11:00:00Z");
+
+        List<AckService.AckResult> first = service.ackBatch(consumer, List.of(new AckService.AckItem(e1, t1)));
+        assertTrue(first.get(0).created);
+
+        // e1 ya existe, e2 es nuevo y viene repetido en el mismo lote
+        List<AckService.AckResult> second = service.ackBatch(consumer, List.of(
+                new AckService.AckItem(e1, t2),
+                new AckService.AckItem(e2, t2),
+                new AckService.AckItem(e2, t2)));
+
+        assertEquals(3, second.size());
+        assertFalse(second.get(0).created);
+        assertTrue(second.get(1).created);
+        assertFalse(second.get(2).created);
+
+        EventAckEntity a1 = repository.findByEventIdAndConsumer(e1, consumer).orElseThrow();
+        assertEquals(2, a1.getAttempts());
+        assertEquals(t1, a1.getFirstSeenAt());
+        assertEquals(t2, a1.getLastSeenAt());
+        assertEquals("CONSUMED", a1.getStatus());
+        assertNotNull(a1.getNextRelayAt());
+
+        EventAckEntity a2 = repository.findByEventIdAndConsumer(e2, consumer).orElseThrow();
+        assertEquals(2, a2.getAttempts());
+        assertEquals(t2, a2.getFirstSeenAt());
+        assertEquals(2, second.get(2).entity.getAttempts());
+    }
+
+    @Test
+    void ackBatch_withoutNativeUpsert_fallsBackToSingleAcks() {
+        AckService service = newService(false);
+        String consumer = consumer();
+        String e1 = UUID.randomUUID().toString();
+
+        List<AckService.AckResult> results = service.ackBatch(consumer, List.of(
+                new AckService.AckItem(e1, null),
+                new AckService.AckItem(e1, null)));
+
+        assertTrue(results.get(0).created);
+        assertFalse(results.get(1).created);
+        assertEquals(2, repository.findByEventIdAndConsumer(e1, consumer).orElseThrow().getAttempts());
+        assertTrue(service.ackBatch(consumer, List.of()).isEmpty());
+    }
+
+    @Test
+    void ack_withRelayDisabled_leavesNothingPendingForRelay() {
+        String consumer = consumer();
+        String e1 = UUID.randomUUID().toString();
+        String e2 = UUID.randomUUID().toString();
+        String e3 = UUID.randomUUID().toString();
+
+        newService(true, false).ackBatch(consumer, List.of(new AckService.AckItem(e1, null)));
+        newService(true, false).ack(e2, consumer, null);
+        newService(false, false).ack(e3, consumer, null);
+        newService(false, false).ack(e3, consumer, null);
+
+        for (String id : List.of(e1, e2, e3)) {
+            assertNull(repository.findByEventIdAndConsumer(id, consumer).orElseThrow().getNextRelayAt(), id);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.persistence.EventAckEntity;
+import com.example.kafkamiddleware.persistence.EventAckRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// AckService como bean (proxy @Transactional real) y sin transacción de test: cada ACK hace su propio commit.
+// Base H2 propia con LOCK_TIMEOUT alto: el default de 1s no alcanza con 64 hilos sobre la misma fila
+// (el equivalente en MySQL, innodb_lock_wait_timeout, es 50s)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:ackstress;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1")
+@Import(AckService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AckServiceConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int ACKS_PER_THREAD = 10;
+
+    @Autowired
+    AckService ackService;
+
+    @Autowired
+    EventAckRepository repository;
+
+    @MockBean
+    EventStore eventStore;
+
+    @Test
+    void ack_64ParallelAckers_countEveryAttemptAndCreateOnce() throws Exception {
+        String eventId = UUID.randomUUID().toString();
+        String consumer = "stress-" + UUID.randomUUID().toString().substring(0, 8);
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> created = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                created.add(pool.submit(() -> {
+                    start.await();
+                    int mine = 0;
+                    for (int i = 0; i < ACKS_PER_THREAD; i++) {
+                        // consumedAt desordenado entre hilos: last_seen_at debe quedar en el máximo
+                        Instant consumedAt = base.plusSeconds((long) thread * ACKS_PER_THREAD + i);
+                        if (ackService.ack(eventId, consumer, consumedAt).created) mine++;
+                    }
+                    return mine;
+                }));
+            }
+            start.countDown();
+            int totalCreated = 0;
+            for (Future<Integer> f : created) totalCreated += f.get(60, TimeUnit.SECONDS);
+            assertEquals(1, totalCreated);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        EventAckEntity ent = repository.findByEventIdAndConsumer(eventId, consumer).orElseThrow();
+        assertEquals(THREADS * ACKS_PER_THREAD, ent.getAttempts());
+        assertEquals(base.plusSeconds((long) THREADS * ACKS_PER_THREAD - 1), ent.getLastSeenAt());
+        assertEquals(1, repository.findByConsumerAndEventIdIn(consumer, List.of(eventId)).size());
+    }
+
+    @Test
+    void ack_olderConsumedAt_doesNotMoveLastSeenBackwards() {
+        String eventId = UUID.randomUUID().toString();
+        String consumer = "stress-" + UUID.randomUUID().toString().substring(0, 8);
+        Instant later = Instant.parse("2025-01-01T12:00:00Z");
+
+        assertTrue(ackService.ack(eventId, consumer, later).created);
+        AckService.AckResult second = ackService.ack(eventId, consumer, later.minusSeconds(3600));
+
+        assertFalse(second.created);
+        assertEquals(2, second.entity.getAttempts());
+        assertEquals(later, second.entity.getLastSeenAt());
+        assertEquals(later, second.entity.getFirstSeenAt());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.kafkamiddleware.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanonicalJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private String canonical(String json) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            CanonicalJson.write(mapper.readTree(json), gen);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void write_sortsKeysRecursivelyAndDropsWhitespace() throws Exception {
+        assertEquals("{\"a\":[{\"x\":1,\"y\":2}],\"b\":{\"c\":true,\"d\":null},\"z\":\"s\"}",
+                canonical("{ \"z\": \"s\", \"b\": {\"d\": null, \"c\": true}, \"a\": [ {\"y\": 2, \"x\": 1} ] }"));
+    }
+
+    @Test
+    void write_keepsArrayOrder() throws Exception {
+        assertNotEquals(canonical("[1,2]"), canonical("[2,1]"));
+    }
+
+    @Test
+    void write_normalizesNumbers() throws Exception {
+        assertEquals(canonical("{\"n\":1}"), canonical("{\"n\":1.0}"));
+        assertEquals(canonical("{\"n\":100}"), canonical("{\"n\":1e2}"));
+        assertEquals(canonical("{\"n\":1.5}"), canonical("{\"n\":1.50}"));
+        assertEquals(canonical("{\"n\":0}"), canonical("{\"n\":-0.0}"));
+        assertEquals("{\"big\":12345678901234567890123,\"small\":0.0000001}", canonical("{\"small\":1E-7,\"big\":12345678901234567890123}"));
+        assertNotEquals(canonical("{\"n\":1}"), canonical("{\"n\":\"1\"}"));
+    }
+
+    @Test
+    void write_normalizesStringEscapes() throws Exception {
+        assertEquals(canonical("{\"s\":\"é\"}"), canonical("{\"s\":\"\\u00e9\"}"));
+    }
+}
@@ -4,12 +4,17 @@ import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.dto.EventStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -89,6 +94,7 @@ class CoreApiClientTest {
         client.forward(e, "Ventas");
 
         verify(eventStore, never()).updateStatus(anyString(), any());
+        verify(eventStore, times(1)).recordDeliveryFailure(e.getId());
     }
 
     @Test
@@ -115,6 +121,28 @@ class CoreApiClientTest {
         verify(rt, times(1)).exchange(anyString(), any(), any(), eq(String.class));
     }
 
+    @Test
+    void forwardAcksToCore_sendsWholeBatchInOnePost() throws Exception {
+        RestTemplate rt = mock(RestTemplate.class);
+        client = new CoreApiClient(eventStore);
+        java.lang.reflect.Field restField = CoreApiClient.class.getDeclaredField("restTemplate");
+        restField.setAccessible(true);
+        restField.set(client, rt);
+        java.lang.reflect.Field f = CoreApiClient.class.getDeclaredField("forwardEnabled");
+        f.setAccessible(true);
+        f.set(client, true);
+        java.lang.reflect.Field base = CoreApiClient.class.getDeclaredField("coreApiBase");
+        base.setAccessible(true);
+        base.set(client, "http://core/api/");
+        when(rt.exchange(anyString(), any(), any(), eq(String.class))).thenReturn(ResponseEntity.ok("ok"));
+
+        client.forwardAcksToCore(List.of(Map.of("eventId", "a"), Map.of("eventId", "b")));
+        client.forwardAcksToCore(List.of());
+
+        verify(rt, times(1)).exchange(eq("http://core/api/core/ack/batch"), eq(HttpMethod.POST),
+                argThat((HttpEntity<?> req) -> ((List<?>) req.getBody()).size() == 2), eq(String.class));
+    }
+
     @Test
     void forwardAsync_exceptionInForward_isCaught() {
         CoreApiClient clientSpy = spy(client);
@@ -127,6 +155,79 @@ class CoreApiClientTest {
         verify(clientSpy, times(1)).forward(e, "Ventas");
     }
 
+    @Test
+    void forwardAsync_whenQueueFull_countsRejectionAndKeepsEventPending() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CoreApiClient clientSpy = spy(client);
+            java.lang.reflect.Field f = CoreApiClient.class.getDeclaredField("forwardExecutor");
+            f.setAccessible(true);
+            f.set(clientSpy, executor);
+            doAnswer(inv -> { release.await(5, TimeUnit.SECONDS); return true; }).when(clientSpy).forward(any(), any());
+
+            // 1 en ejecución + 1 en cola; el tercero se rechaza
+            for (int i = 0; i < 3; i++) {
+                clientSpy.forwardAsync(new Event("t" + i, Map.of(), Instant.now(), "mod", EventStatus.RECEIVED), "Ventas");
+            }
+
+            assertEquals(1, clientSpy.getRejectedForwards());
+            verify(eventStore, never()).updateStatus(anyString(), any());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void forwardBatch_whenRemoteOk_marksAllDeliveredInOneUpdate() throws Exception {
+        RestTemplate rt = mock(RestTemplate.class);
+        java.lang.reflect.Field restField = CoreApiClient.class.getDeclaredField("restTemplate");
+        restField.setAccessible(true);
+        restField.set(client, rt);
+        java.lang.reflect.Field f = CoreApiClient.class.getDeclaredField("forwardEnabled");
+        f.setAccessible(true);
+        f.set(client, true);
+        java.lang.reflect.Field pathField = CoreApiClient.class.getDeclaredField("coreApiBatchPath");
+        pathField.setAccessible(true);
+        pathField.set(client, "/api/core/events/batch");
+
+        Event e1 = new Event("t1", Map.of("k", "v"), Instant.now(), "mod", EventStatus.RECEIVED);
+        Event e2 = new Event("t2", Map.of("k", "v"), Instant.now(), "mod", EventStatus.RECEIVED);
+        when(rt.exchange(anyString(), any(HttpMethod.class), any(), eq(String.class))).thenReturn(ResponseEntity.accepted().body("ok"));
+
+        client.forwardBatch(List.of(e1, e2), "Ventas");
+
+        verify(rt, times(1)).exchange(endsWith("/api/core/events/batch"), eq(HttpMethod.POST), any(), eq(String.class));
+        verify(eventStore, times(1)).updateStatusBulk(List.of(e1.getId(), e2.getId()), EventStatus.DELIVERED);
+        verify(eventStore, never()).updateStatus(anyString(), any());
+    }
+
+    @Test
+    void forwardBatch_whenRemoteError_recordsFailurePerEvent() throws Exception {
+        RestTemplate rt = mock(RestTemplate.class);
+        java.lang.reflect.Field restField = CoreApiClient.class.getDeclaredField("restTemplate");
+        restField.setAccessible(true);
+        restField.set(client, rt);
+        java.lang.reflect.Field f = CoreApiClient.class.getDeclaredField("forwardEnabled");
+        f.setAccessible(true);
+        f.set(client, true);
+
+        Event e1 = new Event("t1", Map.of(), Instant.now(), "mod", EventStatus.RECEIVED);
+        Event e2 = new Event("t2", Map.of(), Instant.now(), "mod", EventStatus.RECEIVED);
+        when(rt.exchange(anyString(), any(HttpMethod.class), any(), eq(String.class))).thenReturn(ResponseEntity.status(503).body("down"));
+
+        client.forwardBatch(List.of(e1, e2), "Ventas");
+
+        verify(eventStore, never()).updateStatusBulk(any(), any());
+        verify(eventStore, times(1)).recordDeliveryFailure(e1.getId());
+        verify(eventStore, times(1)).recordDeliveryFailure(e2.getId());
+    }
+
     @Test
     void buildUrl_handlesTrailingSlashes() throws Exception {
         CoreApiClient localClient = new CoreApiClient(eventStore);
@@ -0,0 +1,80 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.dto.EventStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoreForwardBatcherTest {
+
+    private final List<String> batches = new CopyOnWriteArrayList<>();
+    private CoreForwardBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) batcher.shutdown();
+    }
+
+    private static Event event(String type) {
+        return new Event(type, Map.of(), Instant.now(), "mod", EventStatus.RECEIVED);
+    }
+
+    @Test
+    void add_whenMaxSizeReached_flushesImmediately() {
+        batcher = new CoreForwardBatcher(3, 60_000, (origin, batch) -> batches.add(origin + ":" + batch.size()));
+
+        for (int i = 0; i < 7; i++) batcher.add("Ventas", event("t" + i));
+
+        assertEquals(List.of("Ventas:3", "Ventas:3"), batches);
+        assertEquals(1, batcher.pendingCount());
+    }
+
+    @Test
+    void add_whenLingerExpires_flushesPartialBatch() throws Exception {
+        CountDownLatch flushed = new CountDownLatch(1);
+        batcher = new CoreForwardBatcher(100, 20, (origin, batch) -> {
+            batches.add(origin + ":" + batch.size());
+            flushed.countDown();
+        });
+
+        batcher.add("Ventas", event("a"));
+        batcher.add("Ventas", event("b"));
+
+        assertTrue(flushed.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("Ventas:2"), batches);
+        assertEquals(0, batcher.pendingCount());
+    }
+
+    @Test
+    void add_keepsSeparateBatchesPerOrigin() {
+        batcher = new CoreForwardBatcher(2, 60_000, (origin, batch) -> batches.add(origin + ":" + batch.size()));
+
+        batcher.add("Ventas", event("a"));
+        batcher.add("Inventario", event("b"));
+        batcher.add("Ventas", event("c"));
+
+        assertEquals(List.of("Ventas:2"), batches);
+        assertEquals(1, batcher.pendingCount());
+    }
+
+    @Test
+    void shutdown_flushesPending() {
+        batcher = new CoreForwardBatcher(100, 60_000, (origin, batch) -> batches.add(origin + ":" + batch.size()));
+        batcher.add("Ventas", event("a"));
+        batcher.add("Inventario", event("b"));
+
+        batcher.shutdown();
+
+        assertEquals(2, batches.size());
+        assertTrue(batches.containsAll(List.of("Ventas:1", "Inventario:1")));
+    }
+}
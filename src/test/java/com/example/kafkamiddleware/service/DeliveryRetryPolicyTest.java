@@ -0,0 +1,61 @@
+package com.example.kafkamiddleware.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveryRetryPolicyTest {
+
+    private DeliveryRetryPolicy newPolicy(int maxAttempts, long baseMs, long maxMs) {
+        DeliveryRetryPolicy policy = new DeliveryRetryPolicy();
+        try {
+            java.lang.reflect.Field f = DeliveryRetryPolicy.class.getDeclaredField("maxAttempts");
+            f.setAccessible(true);
+            f.set(policy, maxAttempts);
+            f = DeliveryRetryPolicy.class.getDeclaredField("baseDelayMs");
+            f.setAccessible(true);
+            f.set(policy, baseMs);
+            f = DeliveryRetryPolicy.class.getDeclaredField("maxDelayMs");
+            f.setAccessible(true);
+            f.set(policy, maxMs);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return policy;
+    }
+
+    @Test
+    void nextAttemptAt_growsExponentiallyWithJitter() {
+        DeliveryRetryPolicy policy = newPolicy(10, 1000, 60000);
+        Instant now = Instant.now();
+
+        for (int attempts = 1; attempts <= 4; attempts++) {
+            long expected = 1000L << (attempts - 1);
+            for (int i = 0; i < 50; i++) {
+                long delay = Duration.between(now, policy.nextAttemptAt(attempts, now)).toMillis();
+                assertTrue(delay >= expected / 2 && delay <= expected, "attempt " + attempts + " delay " + delay);
+            }
+        }
+    }
+
+    @Test
+    void nextAttemptAt_isCappedAtMaxDelay() {
+        DeliveryRetryPolicy policy = newPolicy(100, 1000, 5000);
+        Instant now = Instant.now();
+
+        long delay = Duration.between(now, policy.nextAttemptAt(60, now)).toMillis();
+
+        assertTrue(delay <= 5000);
+    }
+
+    @Test
+    void isExhausted_afterMaxAttempts() {
+        DeliveryRetryPolicy policy = newPolicy(3, 1000, 5000);
+
+        assertFalse(policy.isExhausted(2));
+        assertTrue(policy.isExhausted(3));
+    }
+}
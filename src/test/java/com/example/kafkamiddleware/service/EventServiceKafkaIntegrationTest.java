@@ -0,0 +1,72 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.dto.EventStatus;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "app.kafka.enabled=true",
+        "app.outbox.enabled=false"
+})
+@EmbeddedKafka(partitions = 1, topics = "core-events")
+class EventServiceKafkaIntegrationTest {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventStore eventStore;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private ProducerFactory<String, String> producerFactory;
+
+    @Test
+    void producerFactory_isIdempotentWithBatchingAndCompression() {
+        Map<String, Object> cfg = producerFactory.getConfigurationProperties();
+        assertEquals(true, cfg.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals("all", cfg.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals("lz4", cfg.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(10, cfg.get(ProducerConfig.LINGER_MS_CONFIG));
+    }
+
+    @Test
+    void sendToCore_publishesToCoreTopicAndMarksDelivered() throws Exception {
+        Event e = eventStore.save(new Event("order.created", Map.of("orderId", 42), Instant.now(), "ventas-app", EventStatus.RECEIVED));
+
+        eventService.sendToCore(e, "Ventas").get(30, TimeUnit.SECONDS);
+
+        assertEquals(EventStatus.DELIVERED, eventStore.findById(e.getId()).getStatus());
+
+        Map<String, Object> props = KafkaTestUtils.consumerProps("core-events-it", "false", broker);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "core-events");
+            ConsumerRecord<String, String> record = KafkaTestUtils.getSingleRecord(consumer, "core-events", Duration.ofSeconds(30));
+            assertEquals("Ventas", record.key());
+            assertTrue(record.value().contains("\"orderId\":42"));
+            assertEquals(e.getId(), new String(record.headers().lastHeader(EventService.EVENT_ID_HEADER).value(), StandardCharsets.UTF_8));
+        }
+    }
+}
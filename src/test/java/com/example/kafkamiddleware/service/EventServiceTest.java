@@ -1,6 +1,8 @@
 package com.example.kafkamiddleware.service;
 
+import com.example.kafkamiddleware.dto.Event;
 import com.example.kafkamiddleware.dto.EventDto;
+import com.example.kafkamiddleware.dto.EventStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -8,7 +10,9 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.lang.NonNull;
 import org.springframework.test.context.TestPropertySource;
 
@@ -116,6 +120,52 @@ class EventServiceTest {
         assertInstanceOf(JsonProcessingException.class, ex.getCause());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendToCore_event_whenBrokerAcks_marksDeliveredAndUsesConfiguredTopic() throws Exception {
+        KafkaTemplate<String,String> kt = mock(KafkaTemplate.class);
+        EventStore eventStore = mock(EventStore.class);
+        EventService svc = newKafkaService(kt, eventStore);
+        when(kt.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        Event e = new Event("t", Map.of("x", 1), Instant.now(), "ventas-app", EventStatus.RECEIVED);
+        svc.sendToCore(e, "Ventas").join();
+
+        org.mockito.ArgumentCaptor<ProducerRecord<String,String>> captor = org.mockito.ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kt).send(captor.capture());
+        assertEquals("core-events", captor.getValue().topic());
+        assertEquals("Ventas", captor.getValue().key());
+        assertEquals(e.getId(), new String(captor.getValue().headers().lastHeader(EventService.EVENT_ID_HEADER).value()));
+        verify(eventStore).updateStatus(e.getId(), EventStatus.DELIVERED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendToCore_event_whenSendFails_marksFailed() throws Exception {
+        KafkaTemplate<String,String> kt = mock(KafkaTemplate.class);
+        EventStore eventStore = mock(EventStore.class);
+        EventService svc = newKafkaService(kt, eventStore);
+        when(kt.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Kafka down")));
+
+        Event e = new Event("t", Map.of(), Instant.now(), "ventas-app", EventStatus.RECEIVED);
+        CompletableFuture<?> future = svc.sendToCore(e, "Ventas");
+
+        assertTrue(future.isCompletedExceptionally());
+        verify(eventStore).updateStatus(e.getId(), EventStatus.FAILED);
+        verify(eventStore, never()).updateStatus(e.getId(), EventStatus.DELIVERED);
+    }
+
+    private EventService newKafkaService(KafkaTemplate<String,String> kt, EventStore eventStore) throws Exception {
+        EventService svc = new EventService(new TestObjectProvider<>(kt), newMapper(), new ModuleMessageStore());
+        java.lang.reflect.Field f = EventService.class.getDeclaredField("kafkaEnabled");
+        f.setAccessible(true);
+        f.set(svc, true);
+        java.lang.reflect.Field storeField = EventService.class.getDeclaredField("eventStore");
+        storeField.setAccessible(true);
+        storeField.set(svc, eventStore);
+        return svc;
+    }
+
 //    @Test
 //    void sendToCore_kafkaSendError_throwsEventSendException() throws Exception {
 //        @SuppressWarnings("unchecked")
@@ -0,0 +1,86 @@
+package com.example.kafkamiddleware.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventSignatureTest {
+
+    // Implementación anterior de EventStore.signatureOf: las firmas SHA256 guardadas deben seguir coincidiendo
+    private static String legacySignature(String type, String payloadJson, long tsMillis, String origin) throws Exception {
+        String base = type + "|" + payloadJson + "|" + tsMillis + "|" + origin;
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] digest = md.digest(base.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private static String sha(String type, String payloadJson, long tsMillis, String origin) {
+        return EventSignature.of(EventSignature.Algorithm.SHA256, type, payloadJson, tsMillis, origin);
+    }
+
+    @Test
+    void sha256_matchesLegacyStringImplementation() throws Exception {
+        String big = "{\"items\":\"" + "ñandú €🙂 ".repeat(2000) + "\"}";
+        String[][] cases = {
+                {"POST: Venta", "{\"a\":1}", "Ventas"},
+                {"tipo con acentos áéí", "{\"emoji\":\"🙂\",\"cjk\":\"漢字\"}", "Inventario"},
+                {"surrogate suelto \uD83D", "{\"x\":\"\uDC00 fin\"}", "Core"},
+                {null, null, null},
+                {"grande", big, "Analitica"},
+        };
+        long[] timestamps = {0L, 1735689600000L, -1L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (String[] c : cases) {
+            for (long ts : timestamps) {
+                assertEquals(legacySignature(c[0], c[1], ts, c[2]), sha(c[0], c[1], ts, c[2]), c[0] + " / " + ts);
+            }
+        }
+    }
+
+    @Test
+    void hasherIsReusedPerThreadWithoutLeakingState() throws Exception {
+        String first = sha("t", "{\"a\":1}", 1L, "o");
+        sha("otro", "{\"b\":" + "9".repeat(10000) + "}", 2L, "x");
+        assertEquals(first, sha("t", "{\"a\":1}", 1L, "o"));
+        assertEquals(legacySignature("t", "{\"a\":1}", 1L, "o"), first);
+    }
+
+    @Test
+    void murmur3_matchesReferenceVectors() {
+        EventSignature.Hasher h = EventSignature.hasher(EventSignature.Algorithm.MURMUR3_128);
+        assertEquals("00000000000000000000000000000000", h.finishHex());
+
+        h = EventSignature.hasher(EventSignature.Algorithm.MURMUR3_128);
+        h.putString("The quick brown fox jumps over the lazy dog");
+        // mismo valor que Hashing.murmur3_128().hashString(...) de Guava
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", h.finishHex());
+    }
+
+    @Test
+    void murmur3_sameResultForAnySplitOfTheInput() {
+        byte[] data = ("{\"payload\":\"" + "x".repeat(5000) + "\"}").getBytes(StandardCharsets.UTF_8);
+        EventSignature.Hasher h = EventSignature.hasher(EventSignature.Algorithm.MURMUR3_128);
+        h.write(data, 0, data.length);
+        String whole = h.finishHex();
+        assertEquals(32, whole.length());
+
+        for (int chunk : new int[]{1, 3, 15, 16, 17, 4095, 4097}) {
+            h = EventSignature.hasher(EventSignature.Algorithm.MURMUR3_128);
+            for (int off = 0; off < data.length; off += chunk) h.write(data, off, Math.min(chunk, data.length - off));
+            assertEquals(whole, h.finishHex(), "chunk=" + chunk);
+        }
+    }
+
+    @Test
+    void murmur3_differsFromSha256AndDistinguishesFields() {
+        String m = EventSignature.of(EventSignature.Algorithm.MURMUR3_128, "t", "{\"a\":1}", 1L, "o");
+        assertEquals(32, m.length());
+        assertNotEquals(sha("t", "{\"a\":1}", 1L, "o"), m);
+        assertNotEquals(m, EventSignature.of(EventSignature.Algorithm.MURMUR3_128, "t", "{\"a\":1}", 2L, "o"));
+        assertEquals(m, EventSignature.of(EventSignature.Algorithm.MURMUR3_128, "t", "{\"a\":1}", 1L, "o"));
+    }
+}
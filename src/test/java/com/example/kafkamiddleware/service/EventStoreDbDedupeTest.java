@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -63,6 +64,76 @@ class EventStoreDbDedupeTest {
         assertEquals(saved1.getId(), saved2.getId());
     }
 
+    @Test
+    void saveAll_flagsDuplicatesAgainstDbAndWithinBatch() {
+        EventStore store = new EventStore();
+        try {
+            java.lang.reflect.Field repoField = EventStore.class.getDeclaredField("repository");
+            repoField.setAccessible(true);
+            repoField.set(store, repository);
+
+            java.lang.reflect.Field storageField = EventStore.class.getDeclaredField("storageType");
+            storageField.setAccessible(true);
+            storageField.set(store, "DB");
+
+            java.lang.reflect.Field omField = EventStore.class.getDeclaredField("objectMapper");
+            omField.setAccessible(true);
+            omField.set(store, newMapper());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        Instant ts = Instant.now();
+        Event stored = store.save(new Event("t", Map.of("x",1), ts, "modX", EventStatus.RECEIVED));
+
+        Event dupOfStored = new Event("t", Map.of("x",1), ts, "modX", EventStatus.RECEIVED);
+        Event fresh = new Event("t", Map.of("x",2), ts, "modX", EventStatus.RECEIVED);
+        Event dupOfFresh = new Event("t", Map.of("x",2), ts, "modX", EventStatus.RECEIVED);
+
+        List<Event> saved = store.saveAll(List.of(dupOfStored, fresh, dupOfFresh));
+
+        assertEquals(3, saved.size());
+        assertEquals(stored.getId(), saved.get(0).getId());
+        assertEquals(fresh.getId(), saved.get(1).getId());
+        assertEquals(fresh.getId(), saved.get(2).getId());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void save_samePayloadWithOtherKeyOrder_returnsExistingFromDb() {
+        EventStore store = new EventStore();
+        try {
+            java.lang.reflect.Field repoField = EventStore.class.getDeclaredField("repository");
+            repoField.setAccessible(true);
+            repoField.set(store, repository);
+
+            java.lang.reflect.Field storageField = EventStore.class.getDeclaredField("storageType");
+            storageField.setAccessible(true);
+            storageField.set(store, "DB");
+
+            java.lang.reflect.Field omField = EventStore.class.getDeclaredField("objectMapper");
+            omField.setAccessible(true);
+            omField.set(store, newMapper());
+
+            java.lang.reflect.Field canonicalField = EventStore.class.getDeclaredField("canonicalSignature");
+            canonicalField.setAccessible(true);
+            canonicalField.set(store, true);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        Instant ts = Instant.now();
+        Event first = new Event("t-canon", null, ts, "modX", EventStatus.RECEIVED);
+        first.setPayloadJson("{\"a\":1,\"b\":{\"c\":2,\"d\":[1,2]}}");
+        Event reordered = new Event("t-canon", null, ts, "modX", EventStatus.RECEIVED);
+        reordered.setPayloadJson("{\"b\":{\"d\":[1,2],\"c\":2.0},\"a\":1}");
+
+        Event saved1 = store.save(first);
+        Event saved2 = store.save(reordered);
+
+        assertEquals(saved1.getId(), saved2.getId());
+    }
+
     @Test
     void toDto_whenPayloadNotJson_returnsRawInPayload() {
         // insert an EventEntity directly with invalid JSON payload
@@ -98,4 +169,35 @@ class EventStoreDbDedupeTest {
         assertTrue(found.getPayload().containsKey("raw"));
         assertEquals("not-a-json", found.getPayload().get("raw"));
     }
+
+    @Test
+    void toDto_whenPayloadLooksLikeObjectButIsNotJson_serializesRawEntry() throws Exception {
+        // fila vieja guardada con el fallback String.valueOf(map): empieza con '{' pero no es JSON
+        EventEntity ent = new EventEntity();
+        ent.setId("e-db-kv");
+        ent.setType("t");
+        ent.setPayloadJson("{k=v}");
+        ent.setTimestamp(Instant.now());
+        ent.setOriginModule("modX");
+        ent.setStatus(EventStatus.RECEIVED.name());
+        ent.setSignature("sig-kv");
+        repository.save(ent);
+
+        EventStore store = new EventStore();
+        java.lang.reflect.Field repoField = EventStore.class.getDeclaredField("repository");
+        repoField.setAccessible(true);
+        repoField.set(store, repository);
+        java.lang.reflect.Field storageField = EventStore.class.getDeclaredField("storageType");
+        storageField.setAccessible(true);
+        storageField.set(store, "DB");
+        java.lang.reflect.Field omField = EventStore.class.getDeclaredField("objectMapper");
+        omField.setAccessible(true);
+        omField.set(store, newMapper());
+
+        Event found = store.findById("e-db-kv");
+        ObjectMapper mapper = newMapper();
+        String json = mapper.writeValueAsString(List.of(found));
+        com.fasterxml.jackson.databind.JsonNode tree = mapper.readTree(json);
+        assertEquals("{k=v}", tree.get(0).get("payload").get("raw").asText());
+    }
 }
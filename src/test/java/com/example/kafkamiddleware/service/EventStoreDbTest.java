@@ -50,5 +50,42 @@ class EventStoreDbTest {
         Event found = store.findById(saved.getId());
         assertEquals(EventStatus.DELIVERED, found.getStatus());
     }
-}
 
+    @Test
+    void listPage_walksAllRowsByTimestampAndIdAcrossPages() throws Exception {
+        EventStore store = new EventStore();
+        java.lang.reflect.Field repoField = EventStore.class.getDeclaredField("repository");
+        repoField.setAccessible(true);
+        repoField.set(store, repository);
+        java.lang.reflect.Field storageField = EventStore.class.getDeclaredField("storageType");
+        storageField.setAccessible(true);
+        storageField.set(store, "DB");
+
+        // mismo timestamp en varios eventos: el desempate por id evita saltar o repetir filas
+        Instant ts = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < 5; i++) {
+            store.save(new Event("venta", Map.of("n", i), ts, "ventas", EventStatus.RECEIVED));
+            store.save(new Event("stock", Map.of("n", i), ts.plusSeconds(i), "inventario", EventStatus.RECEIVED));
+        }
+
+        java.util.List<String> seen = new java.util.ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            EventStore.EventPage page = store.listPage(null, null, null, cursor, 3);
+            page.events().forEach(e -> seen.add(e.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(4, pages);
+        assertEquals(10, seen.size());
+        assertEquals(10, new java.util.HashSet<>(seen).size());
+
+        EventStore.EventPage ventas = store.listPage(EventStatus.RECEIVED, "venta", "ventas", null, 10);
+        assertEquals(5, ventas.events().size());
+        assertNull(ventas.nextCursor());
+        assertTrue(ventas.events().stream().allMatch(e -> "venta".equals(e.getType())));
+        assertEquals(0, store.listPage(null, "stock", "ventas", null, 10).events().size());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.dto.EventStatus;
+import com.example.kafkamiddleware.persistence.EventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+// Sin transacción de test: la ventana reciente se llena en el commit y la carga del filtro lee lo confirmado
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventStoreDedupeCacheTest {
+
+    @Autowired
+    EventRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private static void set(EventStore store, String field, Object value) throws Exception {
+        java.lang.reflect.Field f = EventStore.class.getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(store, value);
+    }
+
+    /** EventStore en DATABASE sobre un espía del repositorio, con ventana reciente y filtro de Bloom ya cargado. */
+    private EventStore newStore(EventRepository repo, long ttlMs) throws Exception {
+        EventStore store = new EventStore();
+        set(store, "repository", repo);
+        set(store, "storageType", "DB");
+        ObjectMapper m = new ObjectMapper();
+        m.registerModule(new JavaTimeModule());
+        m.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        set(store, "objectMapper", m);
+        set(store, "dedupeCacheTtlMs", ttlMs);
+        store.onInit();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!store.isSignatureFilterReady()) {
+            assertTrue(System.currentTimeMillis() < deadline, "el filtro de Bloom no terminó de cargarse");
+            Thread.sleep(10);
+        }
+        return store;
+    }
+
+    private EventRepository spyRepository() {
+        return mock(EventRepository.class, AdditionalAnswers.delegatesTo(repository));
+    }
+
+    private static Event event(String type, int x, Instant ts) {
+        return new Event(type, Map.of("x", x), ts, "modX", EventStatus.RECEIVED);
+    }
+
+    private final List<String> types = new ArrayList<>();
+
+    private String type() {
+        String type = "t-" + UUID.randomUUID().toString().substring(0, 8);
+        types.add(type);
+        return type;
+    }
+
+    // Las filas quedan confirmadas: se borran para no afectar a otros tests que comparten la BD
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll(repository.findAll().stream().filter(ent -> types.contains(ent.getType())).toList());
+    }
+
+    @Test
+    void save_newSignatureSkipsLookupAndRetryIsServedFromCache() throws Exception {
+        EventRepository repo = spyRepository();
+        EventStore store = newStore(repo, 60000);
+        String type = type();
+        Instant ts = Instant.now();
+
+        Event first = store.save(event(type, 1, ts));
+        Event retry = store.save(event(type, 1, ts));
+
+        assertEquals(first.getId(), retry.getId());
+        verify(repo, never()).findBySignature(any());
+        assertEquals(1, repository.findAll().stream().filter(ent -> type.equals(ent.getType())).count());
+    }
+
+    @Test
+    void save_signaturePersistedBeforeStartup_isFoundThroughBloomAndThenCached() throws Exception {
+        String type = type();
+        Instant ts = Instant.now();
+        EventStore previous = new EventStore();
+        set(previous, "repository", repository);
+        set(previous, "storageType", "DB");
+        Event stored = previous.save(event(type, 1, ts));
+
+        EventRepository repo = spyRepository();
+        EventStore store = newStore(repo, 60000);
+
+        assertEquals(stored.getId(), store.save(event(type, 1, ts)).getId());
+        assertEquals(stored.getId(), store.save(event(type, 1, ts)).getId());
+        verify(repo, times(1)).findBySignature(any());
+    }
+
+    @Test
+    void save_afterWindowExpires_fallsBackToDatabaseLookup() throws Exception {
+        EventRepository repo = spyRepository();
+        EventStore store = newStore(repo, 0);
+        String type = type();
+        Instant ts = Instant.now();
+
+        Event first = store.save(event(type, 1, ts));
+        Event again = store.save(event(type, 1, ts));
+
+        assertEquals(first.getId(), again.getId());
+        verify(repo, times(1)).findBySignature(any());
+    }
+
+    @Test
+    void saveAll_looksUpOnlySignaturesNotCachedAndNotRuledOutByBloom() throws Exception {
+        String type = type();
+        Instant ts = Instant.now();
+        EventStore previous = new EventStore();
+        set(previous, "repository", repository);
+        set(previous, "storageType", "DB");
+        Event persisted = previous.save(event(type, 1, ts));
+
+        EventRepository repo = spyRepository();
+        EventStore store = newStore(repo, 60000);
+        Event recent = store.save(event(type, 2, ts));
+
+        Event fresh = event(type, 3, ts);
+        List<Event> saved = store.saveAll(List.of(event(type, 1, ts), event(type, 2, ts), fresh, event(type, 3, ts)));
+
+        assertEquals(persisted.getId(), saved.get(0).getId());
+        assertEquals(recent.getId(), saved.get(1).getId());
+        assertEquals(fresh.getId(), saved.get(2).getId());
+        assertEquals(fresh.getId(), saved.get(3).getId());
+        // solo la firma guardada antes del arranque llega a la BD
+        verify(repo).findBySignatureIn(argThat((Collection<String> sigs) -> sigs.size() == 1));
+
+        // el lote queda en la ventana reciente
+        assertEquals(fresh.getId(), store.save(event(type, 3, ts)).getId());
+        verify(repo, never()).findBySignature(any());
+    }
+
+    @Test
+    void saveAll_concurrentDuplicateOfBloomNewSignature_retriesItemByItem() throws Exception {
+        String type = type();
+        Instant ts = Instant.now();
+        EventStore store = newStore(repository, 60000);
+        set(store, "transactionManager", transactionManager);
+
+        // Otra instancia guarda la misma firma después de que el filtro de Bloom de store terminó de cargarse
+        EventStore other = new EventStore();
+        set(other, "repository", repository);
+        set(other, "storageType", "DB");
+        Event concurrent = other.save(event(type, 1, ts));
+
+        Event fresh = event(type, 2, ts);
+        List<Event> saved = store.saveAll(List.of(event(type, 1, ts), fresh));
+
+        assertEquals(concurrent.getId(), saved.get(0).getId());
+        assertEquals(fresh.getId(), saved.get(1).getId());
+        assertEquals(2, repository.findAll().stream().filter(ent -> type.equals(ent.getType())).count());
+        // el duplicado resuelto queda en la ventana reciente
+        assertEquals(concurrent.getId(), store.save(event(type, 1, ts)).getId());
+    }
+}
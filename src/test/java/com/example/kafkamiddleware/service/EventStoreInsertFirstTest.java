@@ -0,0 +1,139 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.dto.EventStatus;
+import com.example.kafkamiddleware.persistence.EventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Sin transacción de test: cada INSERT hace commit y el unique de la firma se evalúa de verdad
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventStoreInsertFirstTest {
+
+    @Autowired
+    EventRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private EventStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new EventStore();
+        java.lang.reflect.Field repoField = EventStore.class.getDeclaredField("repository");
+        repoField.setAccessible(true);
+        repoField.set(store, repository);
+
+        java.lang.reflect.Field storageField = EventStore.class.getDeclaredField("storageType");
+        storageField.setAccessible(true);
+        storageField.set(store, "DATABASE");
+
+        java.lang.reflect.Field omField = EventStore.class.getDeclaredField("objectMapper");
+        omField.setAccessible(true);
+        omField.set(store, new ObjectMapper());
+
+        java.lang.reflect.Field insertFirstField = EventStore.class.getDeclaredField("insertFirst");
+        insertFirstField.setAccessible(true);
+        insertFirstField.set(store, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void save_newEvent_isPersisted() {
+        Event ev = new Event("t", Map.of("x", 1), Instant.now(), "modX", EventStatus.RECEIVED);
+
+        Event saved = store.save(ev);
+
+        assertEquals(ev.getId(), saved.getId());
+        assertTrue(repository.findById(ev.getId()).isPresent());
+    }
+
+    @Test
+    void save_duplicate_isDetectedByUniqueConstraint() {
+        Instant ts = Instant.now();
+        Event first = store.save(new Event("t", Map.of("x", 1), ts, "modX", EventStatus.RECEIVED));
+
+        Event second = store.save(new Event("t", Map.of("x", 1), ts, "modX", EventStatus.RECEIVED));
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void save_lookupFirst_runsLookupInsertAndFlushInOneTransaction() throws Exception {
+        EventRepository repo = mock(EventRepository.class, AdditionalAnswers.delegatesTo(repository));
+        // Recurso de la transacción activa (EntityManagerHolder) visto desde cada llamada al repositorio
+        List<Object> seen = new ArrayList<>();
+        doAnswer(inv -> {
+            seen.add(TransactionSynchronizationManager.getResource(entityManagerFactory));
+            return repository.findBySignature(inv.getArgument(0));
+        }).when(repo).findBySignature(any());
+        doAnswer(inv -> {
+            seen.add(TransactionSynchronizationManager.getResource(entityManagerFactory));
+            repository.flush();
+            return null;
+        }).when(repo).flush();
+        set("repository", repo);
+        set("insertFirst", false);
+        set("transactionManager", transactionManager);
+
+        Event ev = new Event("t", Map.of("x", 1), Instant.now(), "modX", EventStatus.RECEIVED);
+        store.save(ev);
+
+        assertEquals(2, seen.size());
+        assertNotNull(seen.get(0), "findBySignature sin transacción");
+        assertSame(seen.get(0), seen.get(1), "findBySignature y flush en transacciones distintas");
+        assertTrue(repository.findById(ev.getId()).isPresent());
+    }
+
+    @Test
+    void save_insertFirst_doesNotOpenATransaction() throws Exception {
+        EventRepository repo = mock(EventRepository.class, AdditionalAnswers.delegatesTo(repository));
+        List<Boolean> active = new ArrayList<>();
+        doAnswer(inv -> {
+            active.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return repository.save(inv.getArgument(0));
+        }).when(repo).save(any());
+        set("repository", repo);
+        set("transactionManager", transactionManager);
+
+        store.save(new Event("t", Map.of("x", 1), Instant.now(), "modX", EventStatus.RECEIVED));
+
+        // el INSERT corre en la transacción propia del repositorio, así el duplicado aparece en su commit
+        assertEquals(List.of(false), active);
+    }
+
+    private void set(String field, Object value) throws Exception {
+        java.lang.reflect.Field f = EventStore.class.getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(store, value);
+    }
+}
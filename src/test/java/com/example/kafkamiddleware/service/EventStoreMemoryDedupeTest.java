@@ -5,20 +5,32 @@ import com.example.kafkamiddleware.dto.EventStatus;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class EventStoreMemoryDedupeTest {
 
-    @Test
-    void save_duplicateEvent_returnsExistingInstance() {
+    private EventStore newMemoryStore() {
         EventStore store = new EventStore();
         try {
             java.lang.reflect.Field f = EventStore.class.getDeclaredField("storageType");
             f.setAccessible(true);
             f.set(store, "MEMORY");
         } catch (Exception e) { throw new RuntimeException(e); }
+        return store;
+    }
+
+    @Test
+    void save_duplicateEvent_returnsExistingInstance() {
+        EventStore store = newMemoryStore();
 
         Instant ts = Instant.now();
         Event a = new Event("tp", Map.of("k",1), ts, "m1", EventStatus.RECEIVED);
@@ -29,5 +41,95 @@ class EventStoreMemoryDedupeTest {
 
         assertSame(saved1, saved2);
     }
-}
 
+    @Test
+    void save_treePayload_isDuplicateOfEquivalentMapPayload() throws Exception {
+        EventStore store = newMemoryStore();
+
+        Instant ts = Instant.now();
+        Event tree = new Event("tp", null, ts, "m1", EventStatus.RECEIVED);
+        tree.setPayloadNode(new com.fasterxml.jackson.databind.ObjectMapper().readTree("{\"k\":1,\"n\":{\"x\":\"y\"}}"));
+        // mismo orden de claves que el árbol: Map.of itera en orden aleatorio por JVM
+        Map<String, Object> payload = new java.util.LinkedHashMap<>();
+        payload.put("k", 1);
+        payload.put("n", Map.of("x", "y"));
+        Event map = new Event("tp", payload, ts, "m1", EventStatus.RECEIVED);
+
+        // Misma firma venga el payload como árbol (ingesta) o como Map
+        assertSame(store.save(tree), store.save(map));
+        assertEquals(1, store.listAll().size());
+    }
+
+    @Test
+    void save_samePayloadWithOtherKeyOrderOrNumberFormat_isDuplicate() throws Exception {
+        EventStore store = newMemoryStore();
+        java.lang.reflect.Field f = EventStore.class.getDeclaredField("canonicalSignature");
+        f.setAccessible(true);
+        f.set(store, true);
+        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+
+        Instant ts = Instant.now();
+        Event a = new Event("tp", null, ts, "m1", EventStatus.RECEIVED);
+        a.setPayloadNode(mapper.readTree("{\"sku\":\"A-1\",\"cantidad\":2,\"precio\":10.50,\"extra\":{\"x\":1,\"y\":2}}"));
+        Event b = new Event("tp", null, ts, "m1", EventStatus.RECEIVED);
+        b.setPayloadJson("{\"extra\":{\"y\":2,\"x\":1},\"precio\":10.5,\"cantidad\":2.0,\"sku\":\"A-1\"}");
+
+        assertSame(store.save(a), store.save(b));
+        assertEquals(1, store.listAll().size());
+    }
+
+    @Test
+    void save_withCanonicalSignatureDisabled_keyOrderMatters() throws Exception {
+        // por defecto (canonical-json=false) se firma el JSON tal cual
+        EventStore store = newMemoryStore();
+
+        Instant ts = Instant.now();
+        Event a = new Event("tp", null, ts, "m1", EventStatus.RECEIVED);
+        a.setPayloadJson("{\"x\":1,\"y\":2}");
+        Event b = new Event("tp", null, ts, "m1", EventStatus.RECEIVED);
+        b.setPayloadJson("{\"y\":2,\"x\":1}");
+
+        assertNotSame(store.save(a), store.save(b));
+    }
+
+    @Test
+    void save_differentTimestamp_isNotDuplicate() {
+        EventStore store = newMemoryStore();
+
+        Instant ts = Instant.now();
+        Event a = new Event("tp", Map.of("k",1), ts, "m1", EventStatus.RECEIVED);
+        Event b = new Event("tp", Map.of("k",1), ts.plusMillis(1), "m1", EventStatus.RECEIVED);
+
+        assertNotEquals(store.save(a).getId(), store.save(b).getId());
+        assertEquals(2, store.listAll().size());
+    }
+
+    @Test
+    void save_concurrentIdenticalEvents_storesOnlyOne() throws Exception {
+        EventStore store = newMemoryStore();
+        Instant ts = Instant.now();
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Event>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    Map<String, Object> payload = new HashMap<>();
+                    payload.put("k", 1);
+                    start.await();
+                    return store.save(new Event("tp", payload, ts, "m1", EventStatus.RECEIVED));
+                }));
+            }
+            start.countDown();
+
+            String firstId = futures.get(0).get().getId();
+            for (Future<Event> f : futures) {
+                assertEquals(firstId, f.get().getId());
+            }
+            assertEquals(1, store.listAll().size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -50,4 +50,52 @@ class EventStoreMemoryTest {
         Event found = store.findById(saved.getId());
         assertEquals(EventStatus.DELIVERED, found.getStatus());
     }
+
+    @Test
+    void recordDeliveryFailure_schedulesRetryThenMarksFailed() throws Exception {
+        DeliveryRetryPolicy policy = new DeliveryRetryPolicy();
+        java.lang.reflect.Field max = DeliveryRetryPolicy.class.getDeclaredField("maxAttempts");
+        max.setAccessible(true);
+        max.set(policy, 2);
+        java.lang.reflect.Field pf = EventStore.class.getDeclaredField("retryPolicy");
+        pf.setAccessible(true);
+        pf.set(store, policy);
+
+        Event saved = store.save(new Event("t1", Map.of("k", "v"), Instant.now(), "mod1", EventStatus.RECEIVED));
+        // recién recibido: aún dentro del margen del primer intento
+        assertTrue(store.findDueForDelivery(Instant.now(), 10).isEmpty());
+
+        assertEquals(EventStatus.RECEIVED, store.recordDeliveryFailure(saved.getId()));
+        assertEquals(1, saved.getDeliveryAttempts());
+        assertEquals(1, store.findDueForDelivery(Instant.now().plusSeconds(3600), 10).size());
+
+        assertEquals(EventStatus.FAILED, store.recordDeliveryFailure(saved.getId()));
+        assertTrue(store.findDueForDelivery(Instant.now().plusSeconds(3600), 10).isEmpty());
+    }
+
+    @Test
+    void listPage_memoryMode_ordersByTimestampThenIdAndFollowsCursor() {
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 4; i >= 0; i--) {
+            store.save(new Event("t", Map.of("n", i), base.plusSeconds(i), "mod1", EventStatus.RECEIVED));
+        }
+        store.save(new Event("otro", Map.of(), base, "mod2", EventStatus.DELIVERED));
+
+        EventStore.EventPage first = store.listPage(EventStatus.RECEIVED, "t", null, null, 2);
+        assertEquals(2, first.events().size());
+        assertEquals(base, first.events().get(0).getTimestamp());
+        assertNotNull(first.nextCursor());
+
+        EventStore.EventPage second = store.listPage(EventStatus.RECEIVED, "t", null, first.nextCursor(), 2);
+        assertEquals(base.plusSeconds(2), second.events().get(0).getTimestamp());
+
+        EventStore.EventPage last = store.listPage(EventStatus.RECEIVED, "t", null, second.nextCursor(), 2);
+        assertEquals(1, last.events().size());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void listPage_invalidCursor_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> store.listPage(null, null, null, "no-es-un-cursor", 10));
+    }
 }
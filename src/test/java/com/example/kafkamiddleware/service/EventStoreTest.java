@@ -142,6 +142,40 @@ class EventStoreTest {
         verify(repository, never()).save(any());
     }
 
+    @Test
+    void save_insertFirst_dbMode_skipsSignatureLookupAndFlush() throws Exception {
+        setStorageMode("DATABASE");
+        setInsertFirst();
+        Event event = new Event("t_if", Map.of("x", 1), Instant.now(), "mod_if", EventStatus.RECEIVED);
+        when(repository.save(any(EventEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Event result = eventStore.save(event);
+
+        assertEquals(event.getId(), result.getId());
+        verify(repository, never()).findBySignature(any());
+        verify(repository, never()).flush();
+    }
+
+    @Test
+    void save_insertFirst_dbMode_onUniqueViolation_returnsExisting() throws Exception {
+        setStorageMode("DATABASE");
+        setInsertFirst();
+        Event event = new Event("t_if", Map.of(), Instant.now(), "mod_if", EventStatus.RECEIVED);
+        EventEntity existingEntity = createTestEventEntity("existing-id", "t_if", "{}", Instant.now(), "mod_if", EventStatus.RECEIVED.name(), "signature-if");
+        when(repository.save(any(EventEntity.class))).thenThrow(new org.springframework.dao.DataIntegrityViolationException("uk_events_signature"));
+        when(repository.findBySignature(any())).thenReturn(Optional.of(existingEntity));
+
+        Event result = eventStore.save(event);
+
+        assertEquals("existing-id", result.getId());
+    }
+
+    private void setInsertFirst() throws Exception {
+        java.lang.reflect.Field f = EventStore.class.getDeclaredField("insertFirst");
+        f.setAccessible(true);
+        f.set(eventStore, true);
+    }
+
     @Test
     void listByStatus_dbMode() {
         setStorageMode("DATABASE");
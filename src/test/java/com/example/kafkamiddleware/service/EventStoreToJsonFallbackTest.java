@@ -31,6 +31,12 @@ class EventStoreToJsonFallbackTest {
         Event e = new Event("tX", Map.of("k", new Object()), Instant.now(), "mX", EventStatus.RECEIVED);
         Event saved = store.save(e);
         assertNotNull(saved);
+        // el fallback sigue siendo JSON válido (nada tipo "{k=v}" llega al almacenamiento)
+        java.lang.reflect.Method toJson = EventStore.class.getDeclaredMethod("toJson", Map.class);
+        toJson.setAccessible(true);
+        String fallback = (String) toJson.invoke(store, Map.of("k", "v\"x"));
+        com.fasterxml.jackson.databind.JsonNode stored = new ObjectMapper().readTree(fallback);
+        assertEquals("{k=v\"x}", stored.get("raw").asText());
     }
 }
 
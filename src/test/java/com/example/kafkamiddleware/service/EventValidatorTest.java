@@ -1,5 +1,6 @@
 package com.example.kafkamiddleware.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -24,7 +25,7 @@ class EventValidatorTest {
     @Test
     void validate_validPayload_returnsEmptySet() {
         Map<String, Object> payload = Map.of("type", "my-event", "payload", Map.of("a", 1));
-        Set<String> errors = validator.validate(payload);
+        Set<String> errors = validator.validate(json(payload));
         assertNotNull(errors);
         assertTrue(errors.isEmpty());
     }
@@ -32,7 +33,7 @@ class EventValidatorTest {
     @Test
     void validate_missingType_returnsErrors() {
         Map<String, Object> payload = Map.of("payload", Map.of("a", 1));
-        Set<String> errors = validator.validate(payload);
+        Set<String> errors = validator.validate(json(payload));
         assertNotNull(errors);
         assertFalse(errors.isEmpty());
     }
@@ -40,14 +41,18 @@ class EventValidatorTest {
     @Test
     void validate_nullPayload_returnsNoErrors() {
         Map<String, Object> event = Map.of("type", "my-event"); // Payload is missing, not null
-        Set<String> errors = validator.validate(event);
+        Set<String> errors = validator.validate(json(event));
         assertTrue(errors.isEmpty(), "Validation should pass when payload is missing but not required");
     }
 
     @Test
     void validate_payloadAsString_returnsNoErrors() {
         Map<String, Object> event = Map.of("type", "my-event", "payload", "not-an-object");
-        Set<String> errors = validator.validate(event);
+        Set<String> errors = validator.validate(json(event));
         assertTrue(errors.isEmpty(), "Validation should pass when payload is a string as allowed by schema");
     }
+
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.kafkamiddleware.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -23,15 +24,18 @@ class EventValidatorTimestampTest {
     @Test
     void validate_timestampAsEpochMillis_valid() {
         Map<String, Object> payload = Map.of("type", "evt", "timestamp", java.time.Instant.ofEpochMilli(System.currentTimeMillis()).toString());
-        Set<String> errors = validator.validate(payload);
+        Set<String> errors = validator.validate(json(payload));
         assertTrue(errors.isEmpty());
     }
 
     @Test
     void validate_timestampAsIsoString_valid() {
         Map<String, Object> payload = Map.of("type", "evt", "timestamp", "2020-01-01T00:00:00Z");
-        Set<String> errors = validator.validate(payload);
+        Set<String> errors = validator.validate(json(payload));
         assertTrue(errors.isEmpty());
     }
-}
 
+    private static JsonNode json(Object value) {
+        return new ObjectMapper().valueToTree(value);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.EventDto;
+import com.example.kafkamiddleware.persistence.ModuleMessageRepository;
+import com.example.kafkamiddleware.persistence.ModuleOffsetRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin transacción de test: el hilo escritor hace commit por su cuenta y el test lee lo confirmado
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ModuleDeliveryLogTest {
+
+    @Autowired
+    ModuleMessageRepository messageRepository;
+
+    @Autowired
+    ModuleOffsetRepository offsetRepository;
+
+    private final List<ModuleDeliveryLog> started = new ArrayList<>();
+
+    private ModuleDeliveryLog newLog(long retentionHours) throws Exception {
+        ModuleDeliveryLog log = new ModuleDeliveryLog(messageRepository, offsetRepository);
+        java.lang.reflect.Field enabled = ModuleDeliveryLog.class.getDeclaredField("enabled");
+        enabled.setAccessible(true);
+        enabled.set(log, true);
+        java.lang.reflect.Field retention = ModuleDeliveryLog.class.getDeclaredField("retentionHours");
+        retention.setAccessible(true);
+        retention.set(log, retentionHours);
+        log.init();
+        started.add(log);
+        return log;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ModuleDeliveryLog log : started) log.shutdown();
+    }
+
+    private static String module() {
+        return "mod-" + UUID.randomUUID();
+    }
+
+    private static EventDto msg(int n) {
+        return new EventDto("t", Map.of("n", n), Instant.parse("2025-01-01T00:00:00Z"), "Core");
+    }
+
+    @Test
+    void append_concurrent_assignsContiguousOffsetsReadBackInOrder() throws Exception {
+        ModuleDeliveryLog log = newLog(168);
+        String mod = module();
+        int threads = 8, perThread = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Long>> futures = java.util.Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) futures.add(log.append(mod, null, msg(base + i)));
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        int total = threads * perThread;
+        List<Long> offsets = new ArrayList<>();
+        long after = 0;
+        List<ModuleDeliveryLog.Entry> page;
+        while (!(page = log.read(mod, after, 120)).isEmpty()) {
+            page.forEach(e -> offsets.add(e.offset()));
+            after = page.get(page.size() - 1).offset();
+        }
+        assertEquals(total, offsets.size());
+        for (int i = 0; i < total; i++) assertEquals(i + 1L, offsets.get(i));
+
+        ModuleDeliveryLog.Entry first = log.read(mod, 0, 1).get(0);
+        assertEquals("t", new ObjectMapper().readTree(first.message()).get("type").asText());
+    }
+
+    @Test
+    void commit_onlyMovesForwardAndSurvivesRestart() throws Exception {
+        ModuleDeliveryLog log = newLog(168);
+        String mod = module();
+        for (int i = 0; i < 5; i++) log.append(mod, UUID.randomUUID().toString(), msg(i)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, log.committedOffset(mod));
+        assertEquals(3, log.commit(mod, 3));
+        assertEquals(3, log.commit(mod, 2));
+        assertEquals(2, log.read(mod, log.committedOffset(mod), 100).size());
+
+        // otra instancia (reinicio): continúa los offsets y conserva lo confirmado
+        log.shutdown();
+        ModuleDeliveryLog restarted = newLog(168);
+        assertEquals(6L, restarted.append(mod, null, msg(5)).get(5, TimeUnit.SECONDS));
+        assertEquals(3, restarted.committedOffset(mod));
+        assertEquals(List.of(4L, 5L, 6L), restarted.read(mod, 3, 100).stream().map(ModuleDeliveryLog.Entry::offset).toList());
+    }
+
+    @Test
+    void commit_beyondEndOfLog_isRejected() throws Exception {
+        ModuleDeliveryLog log = newLog(168);
+        String mod = module();
+        for (int i = 0; i < 3; i++) log.append(mod, null, msg(i)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, log.endOffset(mod));
+        assertThrows(IllegalArgumentException.class, () -> log.commit(mod, 4));
+        assertThrows(IllegalArgumentException.class, () -> log.commit(module(), 1));
+        assertEquals(0, log.committedOffset(mod));
+        assertEquals(3, log.commit(mod, 3));
+    }
+
+    @Test
+    void feed_notifiesSubscribersAndAdvancesPosition() throws Exception {
+        ModuleDeliveryLog log = newLog(168);
+        String mod = module();
+        ModuleFeed feed = log.feed(mod, 0);
+        CountDownLatch notified = new CountDownLatch(1);
+        Runnable unsubscribe = feed.subscribe(notified::countDown);
+
+        log.append(mod, null, msg(1)).get(5, TimeUnit.SECONDS);
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        unsubscribe.run();
+
+        assertEquals(1, feed.next(10).size());
+        assertTrue(feed.next(10).isEmpty());
+    }
+
+    @Test
+    void purgeCommitted_deletesOnlyCommittedEntries() throws Exception {
+        ModuleDeliveryLog log = newLog(0);
+        String mod = module();
+        for (int i = 0; i < 4; i++) log.append(mod, null, msg(i)).get(5, TimeUnit.SECONDS);
+        log.commit(mod, 2);
+        Thread.sleep(5);
+
+        log.purgeCommitted();
+
+        assertEquals(List.of(3L, 4L), log.read(mod, 0, 100).stream().map(ModuleDeliveryLog.Entry::offset).toList());
+    }
+}
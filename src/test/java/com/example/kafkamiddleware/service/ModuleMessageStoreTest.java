@@ -1,6 +1,7 @@
 package com.example.kafkamiddleware.service;
 
 import com.example.kafkamiddleware.dto.EventDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
@@ -53,4 +54,106 @@ class ModuleMessageStoreTest {
         assertNotNull(polled);
         assertTrue(polled.isEmpty());
     }
+
+    private static ModuleMessageStore boundedStore(int capacity, ModuleMessageStore.OverflowPolicy policy) throws Exception {
+        ModuleMessageStore store = new ModuleMessageStore();
+        java.lang.reflect.Field cap = ModuleMessageStore.class.getDeclaredField("queueCapacity");
+        cap.setAccessible(true);
+        cap.set(store, capacity);
+        java.lang.reflect.Field pol = ModuleMessageStore.class.getDeclaredField("overflowPolicy");
+        pol.setAccessible(true);
+        pol.set(store, policy);
+        return store;
+    }
+
+    private static EventDto msg(String type) {
+        return new EventDto(type, Map.of(), Instant.now(), "Core");
+    }
+
+    @Test
+    void add_overCapacity_dropOldest_keepsNewestAndCountsDrops() throws Exception {
+        ModuleMessageStore store = boundedStore(3, ModuleMessageStore.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(store.addMessageForModule("mod", msg("t" + i)));
+        }
+
+        assertEquals(3, store.depth("mod"));
+        assertEquals(2, store.droppedCount("mod"));
+        List<EventDto> polled = store.pollMessagesForModule("mod");
+        assertEquals(List.of("t2", "t3", "t4"), polled.stream().map(EventDto::getType).toList());
+    }
+
+    @Test
+    void add_overCapacity_reject_keepsOldestAndReturnsFalse() throws Exception {
+        ModuleMessageStore store = boundedStore(2, ModuleMessageStore.OverflowPolicy.REJECT);
+        assertTrue(store.addMessageForModule("mod", msg("a")));
+        assertTrue(store.addMessageForModule("mod", msg("b")));
+        assertFalse(store.addMessageForModule("mod", msg("c")));
+
+        assertEquals(1, store.droppedCount("mod"));
+        assertEquals(List.of("a", "b"), store.pollMessagesForModule("mod").stream().map(EventDto::getType).toList());
+    }
+
+    @Test
+    void poll_withMax_returnsInOrderAcrossWrapAround() throws Exception {
+        ModuleMessageStore store = boundedStore(4, ModuleMessageStore.OverflowPolicy.REJECT);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) store.addMessageForModule("mod", msg(round + "-" + i));
+            assertEquals(List.of(round + "-0", round + "-1"), store.pollMessagesForModule("mod", 2).stream().map(EventDto::getType).toList());
+            assertEquals(List.of(round + "-2"), store.pollMessagesForModule("mod", 2).stream().map(EventDto::getType).toList());
+        }
+        assertEquals(0, store.depth("mod"));
+        assertEquals(0, store.droppedCount("mod"));
+    }
+
+    @Test
+    void feedUnsent_returnsMessagesToTheHeadInOrder() throws Exception {
+        ModuleMessageStore store = boundedStore(4, ModuleMessageStore.OverflowPolicy.DROP_OLDEST);
+        ModuleFeed feed = store.feed("mod");
+        for (int i = 0; i < 3; i++) store.addMessageForModule("mod", msg("t" + i));
+
+        List<?> sent = feed.next(3);
+        store.addMessageForModule("mod", msg("t3"));
+        // el envío falló a partir del segundo: t1 y t2 vuelven adelante de t3
+        feed.unsent(sent.subList(1, sent.size()));
+
+        assertEquals(List.of("t1", "t2", "t3"), store.pollMessagesForModule("mod").stream().map(EventDto::getType).toList());
+    }
+
+    @Test
+    void feedUnsent_fullQueue_ignoresCapacityAndPolicy() throws Exception {
+        ModuleMessageStore store = boundedStore(2, ModuleMessageStore.OverflowPolicy.REJECT);
+        ModuleFeed feed = store.feed("mod");
+        store.addMessageForModule("mod", msg("a"));
+        store.addMessageForModule("mod", msg("b"));
+        List<?> sent = feed.next(2);
+        store.addMessageForModule("mod", msg("c"));
+        store.addMessageForModule("mod", msg("d"));
+
+        feed.unsent(sent);
+
+        assertEquals(4, store.depth("mod"));
+        assertEquals(0, store.droppedCount("mod"));
+        assertFalse(store.addMessageForModule("mod", msg("e")));
+        assertEquals(List.of("a", "b", "c"), store.pollMessagesForModule("mod", 3).stream().map(EventDto::getType).toList());
+        // drenada por debajo de la capacidad, la cola vuelve a aceptar hasta su tope
+        assertTrue(store.addMessageForModule("mod", msg("f")));
+        assertFalse(store.addMessageForModule("mod", msg("g")));
+        assertEquals(List.of("d", "f"), store.pollMessagesForModule("mod").stream().map(EventDto::getType).toList());
+    }
+
+    @Test
+    void metrics_exposeDepthAndDropsPerModule() throws Exception {
+        ModuleMessageStore store = boundedStore(1, ModuleMessageStore.OverflowPolicy.DROP_OLDEST);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        java.lang.reflect.Field reg = ModuleMessageStore.class.getDeclaredField("meterRegistry");
+        reg.setAccessible(true);
+        reg.set(store, registry);
+
+        store.addMessageForModule("ventas", msg("a"));
+        store.addMessageForModule("ventas", msg("b"));
+
+        assertEquals(1.0, registry.get("module.queue.depth").tag("module", "ventas").gauge().value());
+        assertEquals(1.0, registry.get("module.queue.dropped").tag("module", "ventas").functionCounter().count());
+    }
 }
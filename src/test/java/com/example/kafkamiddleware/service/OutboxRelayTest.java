@@ -0,0 +1,86 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+import com.example.kafkamiddleware.dto.EventStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private EventStore eventStore;
+    private CoreApiClient coreApiClient;
+    private OriginMapper originMapper;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        eventStore = mock(EventStore.class);
+        coreApiClient = mock(CoreApiClient.class);
+        originMapper = mock(OriginMapper.class);
+        when(originMapper.map("ventas-app")).thenReturn("Ventas");
+        relay = new OutboxRelay(eventStore, coreApiClient, originMapper);
+        java.lang.reflect.Field f = OutboxRelay.class.getDeclaredField("batchSize");
+        f.setAccessible(true);
+        f.set(relay, 2);
+    }
+
+    private Event pending(String type) {
+        return new Event(type, Map.of(), Instant.now(), "ventas-app", EventStatus.RECEIVED);
+    }
+
+    @Test
+    void relayDue_forwardsDueEventsInBatchesWithCanonicalOrigin() {
+        Event a = pending("a"), b = pending("b"), c = pending("c");
+        when(eventStore.findDueForDelivery(any(), eq(2)))
+                .thenReturn(List.of(a, b))
+                .thenReturn(List.of(c));
+        when(coreApiClient.forward(any(), eq("Ventas"))).thenReturn(true, false, true);
+
+        int delivered = relay.relayDue();
+
+        assertEquals(2, delivered);
+        verify(coreApiClient, times(3)).forward(any(), eq("Ventas"));
+        verify(eventStore, times(2)).findDueForDelivery(any(), anyInt());
+    }
+
+    @Test
+    void relayDue_whenBatchEnabled_sendsOneBatchPerOrigin() {
+        when(originMapper.map("inventario-app")).thenReturn("Inventario");
+        Event a = pending("a"), b = new Event("b", Map.of(), Instant.now(), "inventario-app", EventStatus.RECEIVED);
+        when(eventStore.findDueForDelivery(any(), eq(2))).thenReturn(List.of(a, b)).thenReturn(List.of());
+        when(coreApiClient.isBatchEnabled()).thenReturn(true);
+        when(coreApiClient.forwardBatch(any(), any())).thenReturn(true);
+
+        int delivered = relay.relayDue();
+
+        assertEquals(2, delivered);
+        verify(coreApiClient).forwardBatch(List.of(a), "Ventas");
+        verify(coreApiClient).forwardBatch(List.of(b), "Inventario");
+        verify(coreApiClient, never()).forward(any(), any());
+    }
+
+    @Test
+    void relayDue_nothingDue_doesNotForward() {
+        when(eventStore.findDueForDelivery(any(), anyInt())).thenReturn(List.of());
+
+        assertEquals(0, relay.relayDue());
+        verifyNoInteractions(coreApiClient);
+    }
+
+    @Test
+    void scheduledRelay_whenDisabled_doesNothing() {
+        relay.scheduledRelay();
+
+        verifyNoInteractions(eventStore);
+    }
+}
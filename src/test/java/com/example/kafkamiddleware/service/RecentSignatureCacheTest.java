@@ -0,0 +1,56 @@
+package com.example.kafkamiddleware.service;
+
+import com.example.kafkamiddleware.dto.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentSignatureCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private void advanceMillis(long ms) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    @Test
+    void get_returnsEntryUntilTtlExpires() {
+        RecentSignatureCache cache = new RecentSignatureCache(10, 1000, clock::get);
+        Event e = new Event();
+        cache.put("s1", e);
+
+        advanceMillis(999);
+        assertSame(e, cache.get("s1"));
+        advanceMillis(1);
+        assertNull(cache.get("s1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_evictsOldestBeyondMaxSize() {
+        RecentSignatureCache cache = new RecentSignatureCache(2, 60000, clock::get);
+        cache.put("s1", new Event());
+        cache.put("s2", new Event());
+        cache.put("s1", new Event()); // renovada: pasa a ser la más nueva
+        cache.put("s3", new Event());
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("s2"));
+        assertNotNull(cache.get("s1"));
+        assertNotNull(cache.get("s3"));
+    }
+
+    @Test
+    void put_dropsExpiredEntriesFromTheHead() {
+        RecentSignatureCache cache = new RecentSignatureCache(100, 1000, clock::get);
+        cache.put("s1", new Event());
+        cache.put("s2", new Event());
+        advanceMillis(1500);
+        cache.put("s3", new Event());
+
+        assertEquals(1, cache.size());
+    }
+}
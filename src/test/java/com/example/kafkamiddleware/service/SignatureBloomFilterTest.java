@@ -0,0 +1,41 @@
+package com.example.kafkamiddleware.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureBloomFilterTest {
+
+    private static String sig(int i) {
+        return EventSignature.of(EventSignature.Algorithm.SHA256, "t", "{\"i\":" + i + "}", i, "o");
+    }
+
+    @Test
+    void mightContain_neverFalseForAddedSignatures() {
+        SignatureBloomFilter filter = new SignatureBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) filter.put(sig(i));
+        for (int i = 0; i < 10000; i++) assertTrue(filter.mightContain(sig(i)), "firma " + i);
+    }
+
+    @Test
+    void falsePositiveRate_staysNearConfiguredFpp() {
+        SignatureBloomFilter filter = new SignatureBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) filter.put(sig(i));
+        int falsePositives = 0;
+        for (int i = 10000; i < 30000; i++) {
+            if (filter.mightContain(sig(i))) falsePositives++;
+        }
+        assertTrue(falsePositives < 20000 * 0.02, "falsos positivos: " + falsePositives);
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    void works_withNonHexOrShortSignatures() {
+        SignatureBloomFilter filter = new SignatureBloomFilter(100, 0.01);
+        filter.put("no-es-hex");
+        filter.put("abc");
+        assertTrue(filter.mightContain("no-es-hex"));
+        assertTrue(filter.mightContain("abc"));
+        assertFalse(filter.mightContain(sig(1)));
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.kafkamiddleware.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceJwksCacheTest {
+
+    private HttpServer server;
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile String jwksJson = "{\"keys\":[]}";
+    private TokenService svc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/certs", exchange -> {
+            fetches.incrementAndGet();
+            byte[] body = jwksJson.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        svc = new TokenService();
+        setField("jwksUri", "http://127.0.0.1:" + server.getAddress().getPort() + "/certs");
+    }
+
+    @AfterEach
+    void tearDown() {
+        svc.shutdown();
+        server.stop(0);
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field f = TokenService.class.getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(svc, value);
+    }
+
+    private static KeyPair newKeyPair() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        return kpg.generateKeyPair();
+    }
+
+    private void publish(Object... kidAndKeyPairs) {
+        List<com.nimbusds.jose.jwk.JWK> keys = new ArrayList<>();
+        for (int i = 0; i < kidAndKeyPairs.length; i += 2) {
+            keys.add(new RSAKey.Builder((RSAPublicKey) ((KeyPair) kidAndKeyPairs[i + 1]).getPublic()).keyID((String) kidAndKeyPairs[i]).build());
+        }
+        jwksJson = new JWKSet(keys).toJSONObject().toString();
+    }
+
+    private static String token(String kid, KeyPair kp, String clientId) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .claim("azp", clientId)
+                .expirationTime(new Date(System.currentTimeMillis() + 60000))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(kid).build(), claims);
+        jwt.sign(new RSASSASigner(kp.getPrivate()));
+        return "Bearer " + jwt.serialize();
+    }
+
+    @Test
+    void validate_reusesCachedVerifiers_withoutRefetching() throws Exception {
+        KeyPair k1 = newKeyPair();
+        publish("k1", k1);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("c" + i, svc.validateAndExtractClientId(token("k1", k1, "c" + i)));
+        }
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void validate_unknownKid_refetchesOnceAndAcceptsRotatedKey() throws Exception {
+        KeyPair k1 = newKeyPair(), k2 = newKeyPair();
+        publish("k1", k1);
+        svc.validateAndExtractClientId(token("k1", k1, "a"));
+
+        publish("k1", k1, "k2", k2);
+        setField("jwkMinRefetchIntervalMs", 0L);
+
+        assertEquals("b", svc.validateAndExtractClientId(token("k2", k2, "b")));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void validate_unknownKid_withinMinInterval_rejectsWithoutRefetch() throws Exception {
+        KeyPair k1 = newKeyPair(), k2 = newKeyPair();
+        publish("k1", k1);
+        svc.validateAndExtractClientId(token("k1", k1, "a"));
+
+        String bogus = token("bogus", k2, "x");
+        for (int i = 0; i < 5; i++) {
+            assertThrows(TokenService.TokenValidationException.class, () -> svc.validateAndExtractClientId(bogus));
+        }
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void validate_concurrentUnknownKid_fetchesJwksOnce() throws Exception {
+        KeyPair k1 = newKeyPair();
+        publish("k1", k1);
+        String tok = token("k1", k1, "conc");
+
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return svc.validateAndExtractClientId(tok);
+                }));
+            }
+            start.countDown();
+            for (Future<String> r : results) assertEquals("conc", r.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void validate_nearTtl_servesCachedKeyAndRefreshesInBackground() throws Exception {
+        KeyPair k1 = newKeyPair(), k3 = newKeyPair();
+        publish("k1", k1);
+        svc.validateAndExtractClientId(token("k1", k1, "a"));
+
+        // Dentro de la ventana de refresh-ahead: el token se valida con el índice actual
+        setField("jwkSetFetchedAt", System.currentTimeMillis() - 590_000L);
+        setField("jwkMinRefetchIntervalMs", 0L);
+        publish("k1", k1, "k3", k3);
+        assertEquals("b", svc.validateAndExtractClientId(token("k1", k1, "b")));
+
+        java.lang.reflect.Field cache = TokenService.class.getDeclaredField("cachedJwkSet");
+        cache.setAccessible(true);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (((JWKSet) cache.get(svc)).getKeyByKeyId("k3") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertNotNull(((JWKSet) cache.get(svc)).getKeyByKeyId("k3"));
+        assertEquals(2, fetches.get());
+    }
+}
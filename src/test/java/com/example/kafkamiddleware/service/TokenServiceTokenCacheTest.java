@@ -0,0 +1,117 @@
+package com.example.kafkamiddleware.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTokenCacheTest {
+
+    private KeyPair kp;
+    private TokenService svc;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        kp = kpg.generateKeyPair();
+        svc = new TokenService();
+        registry = new SimpleMeterRegistry();
+        setField("meterRegistry", registry);
+        svc.init();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field f = TokenService.class.getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(svc, value);
+    }
+
+    private String token(String clientId, long ttlMillis) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .claim("azp", clientId)
+                .expirationTime(new Date(System.currentTimeMillis() + ttlMillis))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("k1").build(), claims);
+        jwt.sign(new RSASSASigner(kp.getPrivate()));
+        return "Bearer " + jwt.serialize();
+    }
+
+    private double requests(String result) {
+        return registry.get("security.token.cache.requests").tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    void repeatedToken_isServedFromCacheWithoutVerifyingSignatureAgain() throws Exception {
+        JWKSet jwkSet = new JWKSet(new RSAKey.Builder((RSAPublicKey) kp.getPublic()).keyID("k1").build());
+        File tmp = File.createTempFile("jwks-token-cache", ".json");
+        tmp.deleteOnExit();
+        try (FileWriter w = new FileWriter(tmp)) { w.write(jwkSet.toJSONObject().toString()); }
+        setField("jwksUri", tmp.toURI().toString());
+
+        String tok = token("cached-client", 60000);
+        assertEquals("cached-client", svc.validateAndExtractClientId(tok));
+
+        // Sin JWKS disponible una validación completa fallaría: el hit no vuelve a verificar la firma
+        setField("jwksUri", "file:///this/file/does/not/exist.jwks");
+        setField("verifiers", TokenService.class.getDeclaredField("verifiers").getType().getDeclaredField("EMPTY").get(null));
+        assertEquals("cached-client", svc.validateAndExtractClientId(tok));
+        assertEquals("cached-client", svc.validateAndExtractClientId(tok.substring("Bearer ".length())));
+
+        assertEquals(2.0, requests("hit"));
+        assertEquals(1.0, requests("miss"));
+        assertEquals(2.0 / 3, registry.get("security.token.cache.hit.ratio").gauge().value(), 1e-9);
+        svc.shutdown();
+    }
+
+    @Test
+    void cachedToken_isEvictedAtExpiry() throws Exception {
+        String tok = token("short-lived", 1500);
+        assertEquals("short-lived", svc.validateAndExtractClientId(tok));
+
+        Thread.sleep(2100);
+
+        TokenService.TokenValidationException ex = assertThrows(TokenService.TokenValidationException.class,
+                () -> svc.validateAndExtractClientId(tok));
+        assertEquals("Token expired", ex.getMessage());
+        assertEquals(0.0, requests("hit"));
+    }
+
+    @Test
+    void cache_isBoundedByMaxSize() throws Exception {
+        setField("tokenCacheMaxSize", 2);
+        for (int i = 0; i < 5; i++) {
+            svc.validateAndExtractClientId(token("c" + i, 60000));
+        }
+        java.lang.reflect.Field f = TokenService.class.getDeclaredField("tokenCache");
+        f.setAccessible(true);
+        assertTrue(((Map<?, ?>) f.get(svc)).size() <= 2);
+        assertTrue(registry.get("security.token.cache.size").gauge().value() <= 2);
+    }
+
+    @Test
+    void invalidToken_isNotCached() throws Exception {
+        String expired = token("old", -60000);
+        assertThrows(TokenService.TokenValidationException.class, () -> svc.validateAndExtractClientId(expired));
+        assertThrows(TokenService.TokenValidationException.class, () -> svc.validateAndExtractClientId(expired));
+        assertEquals(0.0, requests("hit"));
+        assertEquals(2.0, requests("miss"));
+    }
+}